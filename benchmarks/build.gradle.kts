@@ -0,0 +1,48 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.6.8"
+}
+
+repositories {
+    mavenCentral()
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = Charsets.UTF_8.name()
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+dependencies {
+    jmh(project(":lib"))
+    // the synthetic metamodels are compiled in-memory against the persistence api on the classpath
+    jmh("jakarta.persistence:jakarta.persistence-api:3.0.0")
+    // generates the static metamodels of the scaling suite
+    jmh("org.hibernate.orm:hibernate-jpamodelgen:6.1.2.Final")
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    timeUnit.set("us")
+    benchmarkMode.set(listOf("avgt"))
+    resultFormat.set("JSON")
+    // reports the allocation per operation as gc.alloc.rate.norm
+    profilers.set(listOf("gc"))
+    // e.g. -PjmhIncludes=CriteriaBenchmark
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.set(listOf(it)) }
+}
+
+tasks.register<JavaExec>("scaling") {
+    group = "benchmark"
+    description = "Runs the end-to-end compile-time scaling suite over synthetic schemas."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.mammb.code.jpa.fluent.modelgen.bench.ScalingSuite")
+    args("--out", layout.buildDirectory.dir("results/scaling").get().asFile.path)
+    maxHeapSize = "8g"
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.bench;
+
+import com.mammb.code.jpa.fluent.modelgen.AggregateModelProcessor;
+import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * The fixture of the criteria benchmarks.
+ * <p>
+ * An entity and its static metamodel are compiled with the fluent processors into a temporary directory,
+ * together with a {@link CriteriaWorkload} of each of {@link #WORKLOADS}, and loaded by a class loader of the directory.
+ * The criteria are built on a stub {@link CriteriaBuilder} returning a shared stub for each type,
+ * so that the allocation measured by {@code -prof gc} is the allocation of the building itself.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class CriteriaFixture implements AutoCloseable {
+
+    /** The package of the compiled sources. */
+    private static final String PACKAGE_NAME = "bench";
+
+    /** The workloads, as the name, the fluent building and the raw building. */
+    public static final Map<String, String[]> WORKLOADS = Map.of(
+        "eq", new String[] {
+            "customer.getName().eq(value)",
+            "cb.equal(root.get(Customer_.name), value)" },
+        "like", new String[] {
+            "customer.getName().like(value)",
+            "cb.like(root.get(Customer_.name), value + \"%\", '\\\\')" },
+        "in", new String[] {
+            "customer.getName().in(customer.getFirstName(), customer.getLastName())",
+            "root.get(Customer_.name).in(root.get(Customer_.firstName), root.get(Customer_.lastName))" },
+        "aggregate", new String[] {
+            "customer.getAge().max().get()",
+            "cb.max(root.get(Customer_.age))" });
+
+    /** The shared stubs, keyed by the interface. */
+    private static final Map<Class<?>, Object> STUBS = new ConcurrentHashMap<>();
+
+    /** The temporary directory of the compiled classes. */
+    private final Path dir;
+
+    /** The class loader of the compiled classes. */
+    private final URLClassLoader loader;
+
+
+    /**
+     * Constructor.
+     * @param dir the temporary directory of the compiled classes
+     * @param loader the class loader of the compiled classes
+     */
+    private CriteriaFixture(Path dir, URLClassLoader loader) {
+        this.dir = dir;
+        this.loader = loader;
+    }
+
+
+    /**
+     * Create the fixture.
+     * @return the fixture
+     */
+    public static CriteriaFixture of() {
+
+        List<JavaFileObject> sources = new ArrayList<>();
+        sources.add(source("Customer", """
+            package bench;
+            import jakarta.persistence.*;
+            @Entity public class Customer {
+                @Id private Long id;
+                private String name;
+                private String firstName;
+                private String lastName;
+                private Integer age;
+            }
+            """));
+        sources.add(source("Customer_", """
+            package bench;
+            import jakarta.persistence.metamodel.*;
+            @StaticMetamodel(Customer.class) public abstract class Customer_ {
+                public static volatile SingularAttribute<Customer, Long> id;
+                public static volatile SingularAttribute<Customer, String> name;
+                public static volatile SingularAttribute<Customer, String> firstName;
+                public static volatile SingularAttribute<Customer, String> lastName;
+                public static volatile SingularAttribute<Customer, Integer> age;
+            }
+            """));
+        WORKLOADS.forEach((name, building) -> sources.add(source(workloadName(name), """
+            package bench;
+            import jakarta.persistence.criteria.*;
+            @SuppressWarnings("unchecked")
+            public class %s implements %s {
+                @Override public Object fluent(Root<?> r, CriteriaQuery<?> query, CriteriaBuilder cb, String value) {
+                    var customer = CustomerModel.root((Root<Customer>) r, query, cb);
+                    return %s;
+                }
+                @Override public Object raw(Root<?> r, CriteriaQuery<?> query, CriteriaBuilder cb, String value) {
+                    var root = (Root<Customer>) r;
+                    return %s;
+                }
+            }
+            """.formatted(workloadName(name), CriteriaWorkload.class.getName(), building[0], building[1]))));
+
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("criteria");
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            var diagnostics = new DiagnosticCollector<JavaFileObject>();
+            try (var fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+                fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(Files.createDirectory(dir.resolve("classes"))));
+                fileManager.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(Files.createDirectory(dir.resolve("generated"))));
+                var task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-classpath", System.getProperty("java.class.path"), "-nowarn"), null, sources);
+                task.setProcessors(List.of(new JpaModelProcessor(), new AggregateModelProcessor()));
+                if (!task.call()) {
+                    diagnostics.getDiagnostics().stream()
+                        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                        .limit(10)
+                        .forEach(d -> System.err.println(d.getMessage(Locale.ROOT)));
+                    delete(dir);
+                    throw new IllegalStateException("Compilation failed");
+                }
+            }
+            var loader = new URLClassLoader(new URL[] { dir.resolve("classes").toUri().toURL() },
+                CriteriaFixture.class.getClassLoader());
+            return new CriteriaFixture(dir, loader);
+        } catch (IOException e) {
+            delete(dir);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Get the workload of the given name.
+     * @param name the name of {@link #WORKLOADS}
+     * @return the workload
+     */
+    public CriteriaWorkload workload(String name) {
+        try {
+            return (CriteriaWorkload) loader.loadClass(PACKAGE_NAME + "." + workloadName(name))
+                .getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+    }
+
+
+    /**
+     * Get the stub root.
+     * @return the stub root
+     */
+    public Root<?> root() {
+        return stub(Root.class);
+    }
+
+
+    /**
+     * Get the stub query.
+     * @return the stub query
+     */
+    public CriteriaQuery<?> query() {
+        return stub(CriteriaQuery.class);
+    }
+
+
+    /**
+     * Get the stub criteria builder.
+     * @return the stub criteria builder
+     */
+    public CriteriaBuilder builder() {
+        return stub(CriteriaBuilder.class);
+    }
+
+
+    @Override
+    public void close() {
+        try {
+            loader.close();
+        } catch (IOException ignore) {
+            // the classes are already loaded
+        }
+        delete(dir);
+    }
+
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(STUBS.computeIfAbsent(type, t ->
+            Proxy.newProxyInstance(CriteriaFixture.class.getClassLoader(), new Class<?>[] { t }, CriteriaFixture::invoke)));
+    }
+
+
+    private static Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> method.getDeclaringClass().getSimpleName() + "Stub";
+            };
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == Set.class) return Set.of();
+        if (type == List.class) return List.of();
+        if (type.isInterface() && type.getName().startsWith("jakarta.persistence.")) return stub(type);
+        return null;
+    }
+
+
+    private static String workloadName(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Workload";
+    }
+
+
+    private static JavaFileObject source(String simpleName, String code) {
+        var uri = URI.create("string:///" + PACKAGE_NAME + "/" + simpleName + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+
+    private static void delete(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignore) {
+            // leave it to the temporary directory cleanup
+        }
+    }
+
+}
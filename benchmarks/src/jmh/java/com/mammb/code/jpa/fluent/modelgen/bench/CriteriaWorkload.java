@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.bench;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * A criteria building of the benchmarks, compiled with the generated model classes by {@link CriteriaFixture}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public interface CriteriaWorkload {
+
+    /**
+     * Build the criteria through the generated model classes.
+     * @param root the root
+     * @param query the query
+     * @param builder the criteria builder
+     * @param value the value of the criteria
+     * @return the built predicate or expression
+     */
+    Object fluent(Root<?> root, CriteriaQuery<?> query, CriteriaBuilder builder, String value);
+
+
+    /**
+     * Build the same criteria with the criteria api.
+     * @param root the root
+     * @param query the query
+     * @param builder the criteria builder
+     * @param value the value of the criteria
+     * @return the built predicate or expression
+     */
+    Object raw(Root<?> root, CriteriaQuery<?> query, CriteriaBuilder builder, String value);
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.bench;
+
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+import com.sun.source.util.JavacTask;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The fixture of the benchmarks.
+ * <p>
+ * The entities and the static metamodels of a {@link SyntheticSchema} are compiled in-memory with {@link JavacTask#analyze()},
+ * and the {@code javax.lang.model} elements of the analyzed task are served to the processor
+ * through a minimal {@link ProcessingEnvironment}. The Filer discards the written files.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class MetamodelFixture {
+
+    /** The context of processing. */
+    private final ModelContext context;
+
+    /** The static metamodels. */
+    private final List<StaticMetamodelEntity> entities;
+
+
+    /**
+     * Constructor.
+     * @param context the context of processing
+     * @param entities the static metamodels
+     */
+    private MetamodelFixture(ModelContext context, List<StaticMetamodelEntity> entities) {
+        this.context = context;
+        this.entities = entities;
+    }
+
+
+    /**
+     * Create the fixture.
+     * @param entityCount the number of entities
+     * @param attributeCount the number of attributes of each entity
+     * @return the fixture
+     */
+    public static MetamodelFixture of(int entityCount, int attributeCount) {
+
+        var schema = SyntheticSchema.of(entityCount, attributeCount, 1);
+        List<JavaFileObject> sources = new ArrayList<>(schema.entitySources());
+        sources.addAll(schema.metamodelSources());
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        var fileManager = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+        var task = (JavacTask) compiler.getTask(null, fileManager, null,
+            List.of("-proc:none", "-classpath", System.getProperty("java.class.path")), null, sources);
+        try {
+            task.analyze();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        var context = ModelContext.of(new Environment(task.getElements(), task.getTypes()), false, true);
+        List<StaticMetamodelEntity> entities = new ArrayList<>();
+        for (int i = 0; i < entityCount; i++) {
+            TypeElement element = task.getElements().getTypeElement(SyntheticSchema.entityName(i) + "_");
+            StaticMetamodelEntity.of(context, element).ifPresent(entities::add);
+        }
+        entities.forEach(context.getMetamodelGraph()::register);
+
+        return new MetamodelFixture(context, List.copyOf(entities));
+    }
+
+
+    /**
+     * Get the context of processing.
+     * @return the context of processing
+     */
+    public ModelContext getContext() {
+        return context;
+    }
+
+
+    /**
+     * Get the static metamodels.
+     * @return the static metamodels
+     */
+    public List<StaticMetamodelEntity> getEntities() {
+        return entities;
+    }
+
+
+    /**
+     * The processing environment over the analyzed compilation task.
+     */
+    private static class Environment implements ProcessingEnvironment {
+
+        private final Elements elements;
+        private final Types types;
+
+        Environment(Elements elements, Types types) {
+            this.elements = elements;
+            this.types = types;
+        }
+
+        @Override public Map<String, String> getOptions() { return Map.of(); }
+        @Override public Messager getMessager() { return new DiscardMessager(); }
+        @Override public Filer getFiler() { return new DiscardFiler(); }
+        @Override public Elements getElementUtils() { return elements; }
+        @Override public Types getTypeUtils() { return types; }
+        @Override public SourceVersion getSourceVersion() { return SourceVersion.latestSupported(); }
+        @Override public Locale getLocale() { return Locale.ROOT; }
+    }
+
+
+    /**
+     * The messager that discards the messages.
+     */
+    private static class DiscardMessager implements Messager {
+        @Override public void printMessage(Diagnostic.Kind kind, CharSequence msg) { }
+        @Override public void printMessage(Diagnostic.Kind kind, CharSequence msg, Element e) { }
+        @Override public void printMessage(Diagnostic.Kind kind, CharSequence msg, Element e, AnnotationMirror a) { }
+        @Override public void printMessage(Diagnostic.Kind kind, CharSequence msg, Element e, AnnotationMirror a, AnnotationValue v) { }
+    }
+
+
+    /**
+     * The filer that discards the written files.
+     */
+    private static class DiscardFiler implements Filer {
+
+        @Override
+        public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) {
+            return discard(name, JavaFileObject.Kind.SOURCE);
+        }
+
+        @Override
+        public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) {
+            return discard(name, JavaFileObject.Kind.CLASS);
+        }
+
+        @Override
+        public FileObject createResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                CharSequence relativeName, Element... originatingElements) {
+            return discard(relativeName, JavaFileObject.Kind.OTHER);
+        }
+
+        @Override
+        public FileObject getResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                CharSequence relativeName) {
+            return discard(relativeName, JavaFileObject.Kind.OTHER);
+        }
+
+        private static JavaFileObject discard(CharSequence name, JavaFileObject.Kind kind) {
+            return new SimpleJavaFileObject(URI.create("discard:///" + name.toString().replace('.', '/') + kind.extension), kind) {
+                @Override public OutputStream openOutputStream() { return OutputStream.nullOutputStream(); }
+                @Override public Writer openWriter() { return Writer.nullWriter(); }
+            };
+        }
+    }
+
+}
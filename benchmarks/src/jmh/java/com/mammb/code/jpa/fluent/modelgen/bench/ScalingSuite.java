@@ -0,0 +1,505 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.bench;
+
+import com.mammb.code.jpa.fluent.modelgen.AggregateModelProcessor;
+import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The end-to-end compile-time scaling suite.
+ * <p>
+ * Compiles the synthetic schemas of growing sizes in-process with {@link JavaCompiler},
+ * once without and once with the fluent processors, and records the wall time and the peak heap of each compilation.
+ * The static metamodels are generated by hibernate-jpamodelgen when it is on the classpath,
+ * otherwise they are given as sources.
+ * The time spent in the fluent processors and the size of the generated sources are read from
+ * the {@code fluent.stats} report of both processors, as the wall time also includes compiling the generated sources.
+ * <p>
+ * The results are written to {@code scaling.csv}, and the growth curve to {@code scaling.md}.
+ * The step exponent of the processor time between consecutive sizes is {@code 1.0} for a linear growth.
+ * <pre>
+ * ScalingSuite [--out dir] [--entities 10,100,1000,5000] [--attributes 5,50,500]
+ *              [--base-entities 100] [--base-attributes 20] [--depth 6] [--runs 3]
+ *              [--max-exponent 1.3] [-Akey=value ...]
+ * </pre>
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ScalingSuite {
+
+    /** The class name of hibernate-jpamodelgen. */
+    private static final String HIBERNATE_PROCESSOR = "org.hibernate.jpamodelgen.JPAMetaModelEntityProcessor";
+
+    /** The pattern of the total time of a processor in the stats report. */
+    private static final Pattern TOTAL_NANOS = Pattern.compile("\"totalNanos\": (\\d+)");
+
+    /** The pattern of the size of a source in the stats report. */
+    private static final Pattern SOURCE_BYTES = Pattern.compile("\\{ \"name\": \"[^\"]*\", \"bytes\": (\\d+) }");
+
+    /** The interval of the heap sampling, in milliseconds. */
+    private static final long SAMPLING_INTERVAL = 5;
+
+    /** The output directory. */
+    private Path out = Path.of("build", "results", "scaling");
+
+    /** The entity counts of the entities series. */
+    private int[] entities = { 10, 100, 1_000, 5_000 };
+
+    /** The attribute counts of the attributes series. */
+    private int[] attributes = { 5, 50, 500 };
+
+    /** The entity count of the attributes series. */
+    private int baseEntities = 100;
+
+    /** The attribute count of the entities series. */
+    private int baseAttributes = 20;
+
+    /** The depth of the inheritance chains. */
+    private int depth = 6;
+
+    /** The number of runs of each compilation. */
+    private int runs = 3;
+
+    /** The maximum step exponent of the processor time, or {@code NaN} if not checked. */
+    private double maxExponent = Double.NaN;
+
+    /** The processor options. */
+    private final List<String> options = new ArrayList<>();
+
+
+    /**
+     * Run the suite.
+     * @param args the arguments
+     * @throws IOException if the results could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        var suite = new ScalingSuite();
+        suite.parse(args);
+        if (!suite.run()) {
+            System.exit(1);
+        }
+    }
+
+
+    /**
+     * Run the suite.
+     * @return {@code false} if the step exponent exceeds the maximum
+     * @throws IOException if the results could not be written
+     */
+    boolean run() throws IOException {
+
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var hibernate = hibernateAvailable();
+        System.out.printf("metamodels: %s%n", hibernate ? "hibernate-jpamodelgen" : "sources");
+
+        // warm up the compiler and the processors
+        compile(compiler, SyntheticSchema.of(10, 10, depth), hibernate, true);
+
+        List<Result> results = new ArrayList<>();
+        for (int n : entities) {
+            results.add(measure(compiler, "entities", SyntheticSchema.of(n, baseAttributes, depth), hibernate));
+        }
+        for (int n : attributes) {
+            results.add(measure(compiler, "attributes", SyntheticSchema.of(baseEntities, n, depth), hibernate));
+        }
+
+        Files.createDirectories(out);
+        Files.writeString(out.resolve("scaling.csv"), csv(results), StandardCharsets.UTF_8);
+        var report = report(results, hibernate);
+        Files.writeString(out.resolve("scaling.md"), report, StandardCharsets.UTF_8);
+        System.out.println(report);
+
+        var exponent = maxStepExponent(results);
+        if (!Double.isNaN(maxExponent) && exponent > maxExponent) {
+            System.out.printf("step exponent %.2f exceeds %.2f%n", exponent, maxExponent);
+            return false;
+        }
+        return true;
+    }
+
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (arg.startsWith("-A")) {
+                options.add(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + arg);
+            }
+            var value = args[++i];
+            switch (arg) {
+                case "--out" -> out = Path.of(value);
+                case "--entities" -> entities = ints(value);
+                case "--attributes" -> attributes = ints(value);
+                case "--base-entities" -> baseEntities = Integer.parseInt(value);
+                case "--base-attributes" -> baseAttributes = Integer.parseInt(value);
+                case "--depth" -> depth = Integer.parseInt(value);
+                case "--runs" -> runs = Integer.parseInt(value);
+                case "--max-exponent" -> maxExponent = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+    }
+
+
+    private Result measure(JavaCompiler compiler, String series, SyntheticSchema schema, boolean hibernate) {
+
+        System.out.printf("%s : %s%n", series, schema);
+        Sample baseline = null;
+        Sample fluent = null;
+        for (int i = 0; i < runs; i++) {
+            baseline = Sample.min(baseline, compile(compiler, schema, hibernate, false));
+            fluent = Sample.min(fluent, compile(compiler, schema, hibernate, true));
+        }
+        return new Result(series, schema, baseline, fluent);
+    }
+
+
+    private Sample compile(JavaCompiler compiler, SyntheticSchema schema, boolean hibernate, boolean fluent) {
+
+        List<JavaFileObject> sources = new ArrayList<>(schema.entitySources());
+        List<Processor> processors = new ArrayList<>();
+        if (hibernate) {
+            processors.add(hibernateProcessor());
+        } else {
+            sources.addAll(schema.metamodelSources());
+        }
+        if (fluent) {
+            processors.add(new JpaModelProcessor());
+            processors.add(new AggregateModelProcessor());
+        }
+
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("scaling");
+            var diagnostics = new DiagnosticCollector<JavaFileObject>();
+            var fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(Files.createDirectory(dir.resolve("classes"))));
+            fileManager.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(Files.createDirectory(dir.resolve("generated"))));
+
+            List<String> args = new ArrayList<>(List.of("-classpath", System.getProperty("java.class.path"), "-nowarn"));
+            args.addAll(options);
+            if (fluent) {
+                args.add("-A" + JpaModelProcessor.STATS_OPTION + "=true");
+            }
+            if (processors.isEmpty()) {
+                args.add("-proc:none");
+            }
+            var task = compiler.getTask(null, fileManager, diagnostics, args, null, sources);
+            task.setProcessors(processors);
+
+            gc();
+            var sampler = new HeapSampler();
+            sampler.start();
+            long start = System.nanoTime();
+            boolean success = task.call();
+            long elapsed = System.nanoTime() - start;
+            long peak = sampler.finish();
+            fileManager.close();
+
+            if (!success) {
+                diagnostics.getDiagnostics().stream()
+                    .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                    .limit(10)
+                    .forEach(d -> System.err.println(d.getMessage(Locale.ROOT)));
+                throw new IllegalStateException("Compilation failed : " + schema);
+            }
+            return fluent ? stats(dir.resolve("classes"), elapsed, peak) : new Sample(elapsed, peak, 0, 0);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            delete(dir);
+        }
+    }
+
+
+    /**
+     * Read the stats report of the fluent processors, written by the aggregating processor.
+     * @param classes the class output
+     * @param nanos the wall time in nanoseconds
+     * @param peakHeap the peak heap usage in bytes
+     * @return the sample
+     * @throws IOException if the report could not be read
+     */
+    private static Sample stats(Path classes, long nanos, long peakHeap) throws IOException {
+        long processorNanos = 0;
+        long generatedBytes = 0;
+        var json = Files.readString(classes.resolve("META-INF").resolve("jpa-fluent-modelgen").resolve("stats.json"),
+            StandardCharsets.UTF_8);
+        var total = TOTAL_NANOS.matcher(json);
+        while (total.find()) {
+            processorNanos += Long.parseLong(total.group(1));
+        }
+        var bytes = SOURCE_BYTES.matcher(json);
+        while (bytes.find()) {
+            generatedBytes += Long.parseLong(bytes.group(1));
+        }
+        return new Sample(nanos, peakHeap, processorNanos, generatedBytes);
+    }
+
+
+    private static boolean hibernateAvailable() {
+        try {
+            Class.forName(HIBERNATE_PROCESSOR);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+
+    private static Processor hibernateProcessor() {
+        try {
+            return (Processor) Class.forName(HIBERNATE_PROCESSOR).getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    private static String csv(List<Result> results) {
+        var sb = new StringBuilder();
+        sb.append("series,entities,attributes,depth,baselineMillis,fluentMillis,processorMillis,generatedKB,baselinePeakHeapMB,fluentPeakHeapMB\n");
+        for (Result r : results) {
+            sb.append(String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                r.series(), r.schema().getEntities(), r.schema().getAttributes(), r.schema().getDepth(),
+                millis(r.baseline().nanos()), millis(r.fluent().nanos()), millis(r.fluent().processorNanos()),
+                r.fluent().generatedBytes() / 1024.0, mega(r.baseline().peakHeap()), mega(r.fluent().peakHeap())));
+        }
+        return sb.toString();
+    }
+
+
+    private String report(List<Result> results, boolean hibernate) {
+        var sb = new StringBuilder();
+        sb.append("# Compile-time scaling\n\n");
+        sb.append(String.format(Locale.ROOT, "- java : %s%n", System.getProperty("java.version")));
+        sb.append(String.format(Locale.ROOT, "- processors : %d%n", Runtime.getRuntime().availableProcessors()));
+        sb.append(String.format(Locale.ROOT, "- max heap : %.0f MB%n", mega(Runtime.getRuntime().maxMemory())));
+        sb.append(String.format(Locale.ROOT, "- metamodels : %s%n", hibernate ? "hibernate-jpamodelgen" : "sources"));
+        sb.append(String.format(Locale.ROOT, "- inheritance depth : %d, best of %d runs%n", depth, runs));
+        sb.append(String.format(Locale.ROOT, "- options : %s%n", options.isEmpty() ? "-" : String.join(" ", options)));
+        for (String series : List.of("entities", "attributes")) {
+            var rows = results.stream().filter(r -> r.series().equals(series)).toList();
+            if (rows.isEmpty()) {
+                continue;
+            }
+            sb.append("\n## ").append(series).append("\n\n");
+            sb.append("| entities | attributes | javac ms | javac + fluent ms | processor ms | processor us / attribute | step exponent | generated KB | javac peak MB | javac + fluent peak MB |\n");
+            sb.append("|---:|---:|---:|---:|---:|---:|---:|---:|---:|---:|\n");
+            Result prev = null;
+            for (Result r : rows) {
+                sb.append(String.format(Locale.ROOT, "| %d | %d | %.0f | %.0f | %.0f | %.2f | %s | %.0f | %.0f | %.0f |%n",
+                    r.schema().getEntities(), r.schema().getAttributes(),
+                    millis(r.baseline().nanos()), millis(r.fluent().nanos()), millis(r.processorNanos()),
+                    r.processorNanos() / 1_000.0 / r.size(),
+                    Objects.isNull(prev) ? "-" : String.format(Locale.ROOT, "%.2f", stepExponent(prev, r)),
+                    r.fluent().generatedBytes() / 1024.0, mega(r.baseline().peakHeap()), mega(r.fluent().peakHeap())));
+                prev = r;
+            }
+            sb.append("\n```\n");
+            var max = rows.stream().mapToLong(Result::processorNanos).max().orElse(1);
+            for (Result r : rows) {
+                sb.append(String.format(Locale.ROOT, "%8d x %-4d %s %.0f ms%n",
+                    r.schema().getEntities(), r.schema().getAttributes(),
+                    "#".repeat((int) Math.max(1, 60 * r.processorNanos() / Math.max(1, max))),
+                    millis(r.processorNanos())));
+            }
+            sb.append("```\n");
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Get the maximum step exponent of the processor time, over the steps of both series.
+     * @param results the results
+     * @return the maximum step exponent
+     */
+    private static double maxStepExponent(List<Result> results) {
+        double max = Double.NaN;
+        for (int i = 1; i < results.size(); i++) {
+            var prev = results.get(i - 1);
+            var curr = results.get(i);
+            if (prev.series().equals(curr.series())) {
+                var exponent = stepExponent(prev, curr);
+                max = Double.isNaN(max) ? exponent : Math.max(max, exponent);
+            }
+        }
+        return max;
+    }
+
+
+    /**
+     * Get the exponent {@code k} of {@code time ~ size^k} between two results.
+     * @param prev the smaller result
+     * @param curr the larger result
+     * @return the exponent
+     */
+    private static double stepExponent(Result prev, Result curr) {
+        return Math.log((double) Math.max(1, curr.processorNanos()) / Math.max(1, prev.processorNanos()))
+             / Math.log((double) curr.size() / prev.size());
+    }
+
+
+    private static void gc() {
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+        }
+    }
+
+
+    private static void delete(Path dir) {
+        if (Objects.isNull(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignore) {
+            // leave it to the temporary directory cleanup
+        }
+    }
+
+
+    private static int[] ints(String value) {
+        return Arrays.stream(value.split(",")).map(String::strip).mapToInt(Integer::parseInt).toArray();
+    }
+
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+
+    private static double mega(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+
+    /**
+     * The sample of a compilation.
+     * @param nanos the wall time in nanoseconds
+     * @param peakHeap the peak heap usage in bytes
+     * @param processorNanos the time spent in the fluent processors in nanoseconds
+     * @param generatedBytes the size of the sources generated by the fluent processors
+     */
+    record Sample(long nanos, long peakHeap, long processorNanos, long generatedBytes) {
+
+        /**
+         * Get the sample of the minimum times and of the minimum peak heap.
+         * @param a the sample, or {@code null}
+         * @param b the sample
+         * @return the sample
+         */
+        static Sample min(Sample a, Sample b) {
+            return Objects.isNull(a) ? b : new Sample(
+                Math.min(a.nanos, b.nanos), Math.min(a.peakHeap, b.peakHeap),
+                Math.min(a.processorNanos, b.processorNanos), b.generatedBytes);
+        }
+    }
+
+
+    /**
+     * The result of a schema.
+     * @param series the name of series
+     * @param schema the synthetic schema
+     * @param baseline the sample without the fluent processors
+     * @param fluent the sample with the fluent processors
+     */
+    record Result(String series, SyntheticSchema schema, Sample baseline, Sample fluent) {
+
+        /**
+         * Get the time spent by the fluent processors.
+         * @return the time in nanoseconds
+         */
+        long processorNanos() {
+            return fluent.processorNanos;
+        }
+
+        /**
+         * Get the size of the schema, as the number of declared attributes.
+         * @return the size of the schema
+         */
+        long size() {
+            return (long) schema.getEntities() * Math.max(1, schema.getAttributes());
+        }
+    }
+
+
+    /**
+     * The sampler of the heap usage, running on a daemon thread.
+     */
+    private static class HeapSampler extends Thread {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private volatile boolean running = true;
+        private volatile long peak;
+
+        HeapSampler() {
+            super("heap-sampler");
+            setDaemon(true);
+            peak = memory.getHeapMemoryUsage().getUsed();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(SAMPLING_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long finish() {
+            running = false;
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+        }
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.bench;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The synthetic schema.
+ * <p>
+ * Generates the sources of the synthetic entities and of their static metamodels.
+ * The entities are arranged in inheritance chains of the given depth,
+ * and have a mix of basic attributes, many-to-one and one-to-many associations to the next entity,
+ * and element collections of map.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class SyntheticSchema {
+
+    /** The package of the synthetic entities. */
+    public static final String PACKAGE_NAME = "bench";
+
+    /** The types of the basic attributes, used in turn. */
+    private static final String[] BASIC_TYPES = {
+        "String", "Long", "Integer", "Boolean", "java.math.BigDecimal", "java.time.LocalDate", "java.time.LocalDateTime" };
+
+    /** The number of entities. */
+    private final int entities;
+
+    /** The number of attributes declared by each entity. */
+    private final int attributes;
+
+    /** The depth of the inheritance chains, {@code 1} for no inheritance. */
+    private final int depth;
+
+
+    /**
+     * Constructor.
+     * @param entities the number of entities
+     * @param attributes the number of attributes declared by each entity
+     * @param depth the depth of the inheritance chains
+     */
+    private SyntheticSchema(int entities, int attributes, int depth) {
+        this.entities = entities;
+        this.attributes = attributes;
+        this.depth = depth;
+    }
+
+
+    /**
+     * Create the synthetic schema.
+     * @param entities the number of entities
+     * @param attributes the number of attributes declared by each entity
+     * @param depth the depth of the inheritance chains, {@code 1} for no inheritance
+     * @return the synthetic schema
+     */
+    public static SyntheticSchema of(int entities, int attributes, int depth) {
+        if (entities < 1 || attributes < 0 || depth < 1) {
+            throw new IllegalArgumentException("entities:%d, attributes:%d, depth:%d".formatted(entities, attributes, depth));
+        }
+        return new SyntheticSchema(entities, attributes, depth);
+    }
+
+
+    /**
+     * Get the qualified name of the entity.
+     * @param index the index of entity
+     * @return the qualified name
+     */
+    public static String entityName(int index) {
+        return PACKAGE_NAME + ".Entity" + index;
+    }
+
+
+    /**
+     * Get the sources of the entities.
+     * @return the sources
+     */
+    public List<JavaFileObject> entitySources() {
+        List<JavaFileObject> sources = new ArrayList<>(entities);
+        for (int i = 0; i < entities; i++) {
+            sources.add(source("Entity" + i, entitySource(i)));
+        }
+        return sources;
+    }
+
+
+    /**
+     * Get the sources of the static metamodels.
+     * @return the sources
+     */
+    public List<JavaFileObject> metamodelSources() {
+        List<JavaFileObject> sources = new ArrayList<>(entities);
+        for (int i = 0; i < entities; i++) {
+            sources.add(source("Entity" + i + "_", metamodelSource(i)));
+        }
+        return sources;
+    }
+
+
+    /**
+     * Get the number of entities.
+     * @return the number of entities
+     */
+    public int getEntities() {
+        return entities;
+    }
+
+
+    /**
+     * Get the number of attributes declared by each entity.
+     * @return the number of attributes
+     */
+    public int getAttributes() {
+        return attributes;
+    }
+
+
+    /**
+     * Get the depth of the inheritance chains.
+     * @return the depth of the inheritance chains
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+
+    @Override
+    public String toString() {
+        return "entities:%d, attributes:%d, depth:%d".formatted(entities, attributes, depth);
+    }
+
+
+    private boolean isRoot(int index) {
+        return index % depth == 0;
+    }
+
+
+    private int next(int index) {
+        return (index + 1) % entities;
+    }
+
+
+    private String entitySource(int index) {
+        var sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE_NAME).append(";\n");
+        sb.append("import jakarta.persistence.*;\n");
+        sb.append("@Entity public class Entity").append(index);
+        if (isRoot(index)) {
+            sb.append(" {\n");
+            sb.append("    @Id private Long id;\n");
+        } else {
+            sb.append(" extends Entity").append(index - 1).append(" {\n");
+        }
+        for (int i = 0; i < attributes; i++) {
+            var name = attributeName(index, i);
+            switch (i % 10) {
+                case 7 -> sb.append("    @ManyToOne private Entity").append(next(index)).append(" ").append(name).append(";\n");
+                case 8 -> sb.append("    @OneToMany private java.util.List<Entity").append(next(index)).append("> ").append(name).append(";\n");
+                case 9 -> sb.append("    @ElementCollection private java.util.Map<String, String> ").append(name).append(";\n");
+                default -> sb.append("    private ").append(BASIC_TYPES[i % BASIC_TYPES.length]).append(" ").append(name).append(";\n");
+            }
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+
+    private String metamodelSource(int index) {
+        var entity = "Entity" + index;
+        var sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE_NAME).append(";\n");
+        sb.append("import jakarta.persistence.metamodel.*;\n");
+        sb.append("@StaticMetamodel(").append(entity).append(".class) public abstract class ").append(entity).append("_");
+        if (isRoot(index)) {
+            sb.append(" {\n");
+            sb.append("    public static volatile SingularAttribute<").append(entity).append(", Long> id;\n");
+        } else {
+            sb.append(" extends Entity").append(index - 1).append("_ {\n");
+        }
+        for (int i = 0; i < attributes; i++) {
+            sb.append("    public static volatile ");
+            switch (i % 10) {
+                case 7 -> sb.append("SingularAttribute<").append(entity).append(", Entity").append(next(index)).append(">");
+                case 8 -> sb.append("ListAttribute<").append(entity).append(", Entity").append(next(index)).append(">");
+                case 9 -> sb.append("MapAttribute<").append(entity).append(", String, String>");
+                default -> sb.append("SingularAttribute<").append(entity).append(", ").append(BASIC_TYPES[i % BASIC_TYPES.length]).append(">");
+            }
+            sb.append(" ").append(attributeName(index, i)).append(";\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+
+    private static String attributeName(int index, int i) {
+        // qualified by the entity, so that the attributes are not hidden in the inheritance chains
+        return "e" + index + "Attr" + i;
+    }
+
+
+    private static JavaFileObject source(String simpleName, String code) {
+        var uri = URI.create("string:///" + PACKAGE_NAME + "/" + simpleName + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+}
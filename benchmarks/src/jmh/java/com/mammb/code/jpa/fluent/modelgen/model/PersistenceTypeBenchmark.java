@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of {@link PersistenceType#of(String)}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+public class PersistenceTypeBenchmark {
+
+    /** The names of persistence annotation, including the ones of no persistence type. */
+    private final String[] names = {
+        "jakarta.persistence.Entity",
+        "jakarta.persistence.Embeddable",
+        "javax.persistence.MappedSuperclass",
+        "jakarta.persistence.Table",
+        "",
+    };
+
+
+    /**
+     * Select the persistence types.
+     * @param bh the blackhole
+     */
+    @Benchmark
+    public void of(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(PersistenceType.of(name));
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.bench.CriteriaFixture;
+import com.mammb.code.jpa.fluent.modelgen.bench.CriteriaWorkload;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of the criteria building through the {@code Criteria} class written by {@link ApiClassWriter}.
+ * Compares the building through the generated model classes with the same building with the criteria api,
+ * to be run with {@code -prof gc} for the allocation per operation.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+public class CriteriaBenchmark {
+
+    /** The name of the workload. */
+    @Param({ "eq", "like", "in", "aggregate" })
+    public String workload;
+
+    /** The value of the criteria, with the characters to be escaped in a like pattern. */
+    private String value = "100%_off";
+
+    /** The fixture. */
+    private CriteriaFixture fixture;
+
+    /** The workload. */
+    private CriteriaWorkload target;
+
+    /** The stub root. */
+    private Root<?> root;
+
+    /** The stub query. */
+    private CriteriaQuery<?> query;
+
+    /** The stub criteria builder. */
+    private CriteriaBuilder builder;
+
+
+    /**
+     * Compile the model classes and the workload.
+     */
+    @Setup
+    public void setup() {
+        fixture = CriteriaFixture.of();
+        target = fixture.workload(workload);
+        root = fixture.root();
+        query = fixture.query();
+        builder = fixture.builder();
+    }
+
+
+    /**
+     * Delete the compiled classes.
+     */
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+
+    /**
+     * Build the criteria through the generated model classes.
+     * @return the built predicate or expression
+     */
+    @Benchmark
+    public Object fluent() {
+        return target.fluent(root, query, builder, value);
+    }
+
+
+    /**
+     * Build the criteria with the criteria api.
+     * @return the built predicate or expression
+     */
+    @Benchmark
+    public Object raw() {
+        return target.raw(root, query, builder, value);
+    }
+
+}
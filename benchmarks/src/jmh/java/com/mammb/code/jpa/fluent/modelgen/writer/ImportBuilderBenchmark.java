@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the {@link ImportBuilder}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+public class ImportBuilderBenchmark {
+
+    /** The number of the added names. */
+    @Param({ "10", "100", "1000" })
+    public int size;
+
+    /** The names to be added, with duplicates, conflicting simple names and names of the self package. */
+    private List<String> names;
+
+    /** The populated builder. */
+    private ImportBuilder populated;
+
+
+    /**
+     * Create the names.
+     */
+    @Setup
+    public void setup() {
+        names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(switch (i % 4) {
+                case 0 -> "com.example.domain.Entity" + i;
+                case 1 -> "com.example.other" + (i % 3) + ".Entity" + (i - 1);
+                case 2 -> "java.lang.String";
+                default -> "java.util.List";
+            });
+        }
+        populated = ImportBuilder.of("com.example.domain");
+        names.forEach(populated::add);
+    }
+
+
+    /**
+     * Add the names.
+     * @return the builder
+     */
+    @Benchmark
+    public ImportBuilder add() {
+        var imports = ImportBuilder.of("com.example.domain");
+        names.forEach(imports::add);
+        return imports;
+    }
+
+
+    /**
+     * Generate the import sentences.
+     * @return the import sentences
+     */
+    @Benchmark
+    public String generateImports() {
+        return populated.generateImports(true);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.bench.MetamodelFixture;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the full rendering of {@code <Entity>Model}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+public class ModelClassWriterBenchmark {
+
+    /** The number of attributes of the entity. */
+    @Param({ "10", "100", "500" })
+    public int attributes;
+
+    /** The fixture. */
+    private MetamodelFixture fixture;
+
+    /** The snapshot of the rendered entity. */
+    private MetamodelSnapshot snapshot;
+
+
+    /**
+     * Compile the synthetic metamodels.
+     */
+    @Setup
+    public void setup() {
+        fixture = MetamodelFixture.of(2, attributes);
+        snapshot = MetamodelSnapshot.of(fixture.getEntities().get(0));
+    }
+
+
+    /**
+     * Render the source of the model class.
+     * @return the source
+     */
+    @Benchmark
+    public String render() {
+        return ModelClassWriter.of(fixture.getContext(), snapshot).render();
+    }
+
+
+    /**
+     * Render and write the model class to the discarding Filer.
+     */
+    @Benchmark
+    public void writeFile() {
+        ModelClassWriter.of(fixture.getContext(), snapshot).writeFile();
+    }
+
+
+    /**
+     * Take the snapshot of the static metamodel, and render the model class.
+     * @return the source
+     */
+    @Benchmark
+    public String snapshotAndRender() {
+        return ModelClassWriter.of(fixture.getContext(), MetamodelSnapshot.of(fixture.getEntities().get(0))).render();
+    }
+
+}
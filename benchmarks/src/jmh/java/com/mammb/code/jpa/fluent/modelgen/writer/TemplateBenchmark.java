@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.Map;
+
+/**
+ * Benchmarks of the template binding.
+ * Compares the string replacement of {@link Template} with the pre-parsed {@link CompiledTemplate}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+    /** The template of a singular attribute of the root model. */
+    private static final String TEMPLATE = """
+        public Criteria.$AttributeJavaType$Expr<$ValueType$> get$AttributeName$() {
+            return new Criteria.$AttributeJavaType$Expr<>(get().get($EnclosingType$_.$attributeName$), builder());
+        }
+        """;
+
+    /** The bound values. */
+    private static final Map<String, String> VALUES = Map.of(
+        "$AttributeJavaType$", "Comparable",
+        "$ValueType$", "java.time.LocalDate",
+        "$AttributeName$", "CreatedOn",
+        "$EnclosingType$", "Customer",
+        "$attributeName$", "createdOn");
+
+    /** The compiled template. */
+    private CompiledTemplate compiled;
+
+
+    /**
+     * Compile the template.
+     */
+    @Setup
+    public void setup() {
+        compiled = CompiledTemplate.of(TEMPLATE);
+    }
+
+
+    /**
+     * Bind by string replacement.
+     * @return the bound string
+     */
+    @Benchmark
+    public String bind() {
+        return Template.of(TEMPLATE).bind(VALUES).toString();
+    }
+
+
+    /**
+     * Bind with the compiled template.
+     * @return the bound string
+     */
+    @Benchmark
+    public String compiled() {
+        return compiled.render(VALUES);
+    }
+
+
+    /**
+     * Compile and bind.
+     * @return the bound string
+     */
+    @Benchmark
+    public String compileAndRender() {
+        return CompiledTemplate.of(TEMPLATE).render(VALUES);
+    }
+
+}
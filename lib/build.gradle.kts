@@ -22,6 +22,8 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:5.9.0")
 
     testImplementation("jakarta.persistence:jakarta.persistence-api:3.0.0")
+    testRuntimeOnly("org.hibernate.orm:hibernate-core:6.1.2.Final")
+    testRuntimeOnly("com.h2database:h2:2.1.214")
     testAnnotationProcessor("org.hibernate.orm:hibernate-jpamodelgen:6.1.2.Final")
 
     testAnnotationProcessor(project(":lib", "archives"))
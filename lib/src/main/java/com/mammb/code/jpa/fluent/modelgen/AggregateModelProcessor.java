@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen;
+
+import com.mammb.code.jpa.fluent.modelgen.context.AnnotatedElements;
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.context.ProcessingStats;
+import com.mammb.code.jpa.fluent.modelgen.context.ProcessingStats.Phase;
+import com.mammb.code.jpa.fluent.modelgen.model.MappableType;
+import com.mammb.code.jpa.fluent.modelgen.model.RepositoryTraitType;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+import com.mammb.code.jpa.fluent.modelgen.writer.ApiClassWriter;
+import com.mammb.code.jpa.fluent.modelgen.writer.MappersClassWriter;
+import com.mammb.code.jpa.fluent.modelgen.writer.TraitsClassWriter;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Aggregating annotation processor.
+ * <p>
+ * Generates the sources that depend on more than one element,
+ * that are the api classes, the {@code <Entity>Traits_} holding the treat methods
+ * to the descendant entities and the repository traits, and the {@code Mappers} of mappable types.
+ * The discovery of the round and the static metamodels are shared with {@link JpaModelProcessor}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+@SupportedAnnotationTypes({
+    StaticMetamodelEntity.ANNOTATION_TYPE,
+    StaticMetamodelEntity.ANNOTATION_TYPE_LEGACY,
+    RepositoryTraitType.ANNOTATION_TYPE,
+    MappableType.ANNOTATION_TYPE
+})
+@SupportedOptions({
+    JpaModelProcessor.DEBUG_OPTION,
+    JpaModelProcessor.ADD_REPOSITORY,
+    JpaModelProcessor.STATS_OPTION,
+})
+public class AggregateModelProcessor extends AbstractProcessor {
+
+    /** Context of processing. */
+    private ModelContext context;
+
+    /** Whether the mappers are to be generated. */
+    private boolean mappers;
+
+
+    @Override
+    public void init(ProcessingEnvironment env) {
+
+        super.init(env);
+        this.context = ModelContext.of(env,
+            Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.DEBUG_OPTION, "false")),
+            Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.ADD_REPOSITORY, "true")),
+            ProcessingStats.of(Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.STATS_OPTION, "false"))));
+
+        var version = getClass().getPackage().getImplementationVersion();
+        context.logInfo("AggregateModelProcessor {}", (Objects.isNull(version) ? "" : version));
+        context.shareStats(getClass().getSimpleName());
+
+        this.mappers =
+            Objects.nonNull(env.getElementUtils().getTypeElement("com.mammb.code.jpa.fluent.query.Mapper")) &&
+            Objects.nonNull(env.getElementUtils().getTypeElement("com.mammb.code.jpa.fluent.query.Selector")) &&
+            Objects.nonNull(env.getElementUtils().getTypeElement("com.mammb.code.jpa.fluent.query.Grouping"));
+
+    }
+
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        if (roundEnv.processingOver()) {
+            context.writeStats(getClass().getSimpleName());
+            context.releaseShared();
+            return false;
+        }
+
+        if (roundEnv.errorRaised() || annotations.isEmpty()) {
+            return false;
+        }
+
+        var stats = context.getStats();
+        stats.measureRound(() -> {
+            try {
+
+                var elements = stats.measure(Phase.DISCOVERY, () -> context.getAnnotatedElements(roundEnv));
+
+                var entities = stats.measure(Phase.MODEL_BUILDING, () -> {
+                    getRepositoryTraitTypes(elements).forEach(context::addRepositoryTraitType);
+                    return context.getStaticMetamodelEntities(roundEnv).stream()
+                        .filter(entity -> entity.getTargetEntity().getPersistenceType().isEntity() ||
+                                          entity.getTargetEntity().getPersistenceType().isEmbeddable())
+                        .filter(entity -> !context.isAlreadyGenerated(entity.getQualifiedName()))
+                        .toList();
+                });
+
+                stats.measure(Phase.RENDERING, () -> {
+                    for (StaticMetamodelEntity entity : entities) {
+                        stats.addEntity(entity.getTargetEntityQualifiedName(), entity.getAllAttributes().size());
+                        if (entity.isEntityMetamodel()) {
+                            TraitsClassWriter.of(context, entity).writeFile();
+                        }
+                        context.addGenerated(entity);
+                    }
+                    if (context.hasGeneratedModel()) {
+                        ApiClassWriter.of(context, entities.stream().map(StaticMetamodelEntity::getElement).toList())
+                            .writeClasses();
+                    }
+                });
+
+                var mappableTypes = stats.measure(Phase.MODEL_BUILDING, () -> getMappableTypes(elements));
+                if (mappers && !mappableTypes.isEmpty()) {
+                    stats.measure(Phase.RENDERING, () -> MappersClassWriter.of(context, mappableTypes).writeFile());
+                    mappers = false;
+                }
+
+            } catch (Exception e) {
+                context.logError("Exception : {}", e.getMessage());
+            }
+        });
+
+        return false;
+
+    }
+
+
+    private Collection<RepositoryTraitType> getRepositoryTraitTypes(AnnotatedElements elements) {
+        return elements.get(RepositoryTraitType.ANNOTATION_TYPE).stream()
+            .map(elm -> RepositoryTraitType.of(context, elm))
+            .flatMap(Optional::stream)
+            .toList();
+    }
+
+
+    private List<MappableType> getMappableTypes(AnnotatedElements elements) {
+        return elements.get(MappableType.ANNOTATION_TYPE).stream()
+            .map(elm -> MappableType.of(context, elm))
+            .flatMap(Optional::stream)
+            .toList();
+    }
+
+}
@@ -16,9 +16,10 @@
 package com.mammb.code.jpa.fluent.modelgen;
 
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
-import com.mammb.code.jpa.fluent.modelgen.model.RepositoryTraitType;
+import com.mammb.code.jpa.fluent.modelgen.context.ProcessingStats;
+import com.mammb.code.jpa.fluent.modelgen.context.ProcessingStats.Phase;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
-import com.mammb.code.jpa.fluent.modelgen.writer.ApiClassWriter;
 import com.mammb.code.jpa.fluent.modelgen.writer.ModelClassWriter;
 import com.mammb.code.jpa.fluent.modelgen.writer.RepositoryClassWriter;
 import javax.annotation.processing.AbstractProcessor;
@@ -28,26 +29,33 @@ import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.TypeElement;
-import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main annotation processor.
+ * <p>
+ * This processor is isolating. Each generated {@code <Entity>Model} and {@code <Entity>Repository_}
+ * depends only on its own static metamodel, which is the single originating element.
+ * Everything that depends on other elements is generated by {@link AggregateModelProcessor}.
+ * The discovery of the round and the static metamodels are shared with it.
  *
  * @author Naotsugu Kobayashi
  */
 @SupportedAnnotationTypes({
     StaticMetamodelEntity.ANNOTATION_TYPE,
-    StaticMetamodelEntity.ANNOTATION_TYPE_LEGACY,
-    RepositoryTraitType.ANNOTATION_TYPE
+    StaticMetamodelEntity.ANNOTATION_TYPE_LEGACY
 })
 @SupportedOptions({
     JpaModelProcessor.DEBUG_OPTION,
     JpaModelProcessor.ADD_REPOSITORY,
+    JpaModelProcessor.PARALLELISM_OPTION,
+    JpaModelProcessor.STATS_OPTION,
+    JpaModelProcessor.COMPACT_OPTION,
 })
 public class JpaModelProcessor extends AbstractProcessor {
 
@@ -57,9 +65,28 @@ public class JpaModelProcessor extends AbstractProcessor {
     /** Add criteria option. */
     public static final String ADD_REPOSITORY = "addRepository";
 
+    /** Statistics option, that writes the report of processing. */
+    public static final String STATS_OPTION = "fluent.stats";
+
+    /**
+     * Parallelism option.
+     * The number of threads rendering the sources, {@code 0} for the number of available processors.
+     */
+    public static final String PARALLELISM_OPTION = "fluent.parallelism";
+
+    /**
+     * Compact option.
+     * The {@code Root_}, {@code Join_} and {@code Path_} of the models extend the base classes of the api,
+     * and hold only the typed attribute methods.
+     */
+    public static final String COMPACT_OPTION = "fluent.compact";
+
     /** Context of processing. */
     private ModelContext context;
 
+    /** The number of threads rendering the sources. */
+    private int parallelism;
+
 
     @Override
     public void init(ProcessingEnvironment env) {
@@ -67,10 +94,15 @@ public class JpaModelProcessor extends AbstractProcessor {
         super.init(env);
         this.context = ModelContext.of(env,
             Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.DEBUG_OPTION, "false")),
-            Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.ADD_REPOSITORY, "true")));
+            Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.ADD_REPOSITORY, "true")),
+            ProcessingStats.of(Boolean.parseBoolean(env.getOptions().getOrDefault(JpaModelProcessor.STATS_OPTION, "false"))));
 
         var version = getClass().getPackage().getImplementationVersion();
         context.logInfo("JpaModelProcessor {}", (Objects.isNull(version) ? "" : version));
+        context.shareStats(getClass().getSimpleName());
+
+        this.parallelism = parallelism(env.getOptions().get(PARALLELISM_OPTION));
+        context.setCompact(Boolean.parseBoolean(env.getOptions().getOrDefault(COMPACT_OPTION, "false")));
 
     }
 
@@ -84,27 +116,37 @@ public class JpaModelProcessor extends AbstractProcessor {
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
 
-        if (roundEnv.errorRaised() || roundEnv.processingOver() || annotations.isEmpty()) {
+        if (roundEnv.processingOver()) {
+            // reported by the aggregating processor, as an isolating processor writes no resource without an originating element
+            context.logStats(getClass().getSimpleName());
+            context.releaseShared();
             return false;
         }
 
-        try {
+        if (roundEnv.errorRaised() || annotations.isEmpty()) {
+            return false;
+        }
+
+        var stats = context.getStats();
+        stats.measureRound(() -> {
+            try {
 
-            getStaticMetamodelEntities(roundEnv).forEach(this::createMetaModelClasses);
-            getRepositoryTraitTypes(roundEnv).forEach(context::addRepositoryTraitType);
+                stats.measure(Phase.DISCOVERY, () -> context.getAnnotatedElements(roundEnv));
+                var snapshots = stats.measure(Phase.MODEL_BUILDING, () -> context.getStaticMetamodelEntities(roundEnv).stream()
+                    .map(this::snapshot)
+                    .flatMap(Optional::stream)
+                    .toList());
 
-            if (context.hasGeneratedModel()) {
-                ApiClassWriter.of(context).writeClasses();
-                if (context.isAddRepository()) {
-                    context.getGeneratedModelClasses().stream()
-                        .filter(StaticMetamodelEntity::isEntityMetamodel)
-                        .forEach(model -> RepositoryClassWriter.of(context, model).writeFile());
+                if (parallelism > 1 && snapshots.size() > 1) {
+                    createMetaModelClassesInParallel(snapshots);
+                } else {
+                    stats.measure(Phase.RENDERING, () -> snapshots.forEach(this::createMetaModelClasses));
                 }
-            }
 
-        } catch (Exception e) {
-            context.logError("Exception : {}", e.getMessage());
-        }
+            } catch (Exception e) {
+                context.logError("Exception : {}", e.getMessage());
+            }
+        });
 
         return false;
 
@@ -112,48 +154,103 @@ public class JpaModelProcessor extends AbstractProcessor {
 
 
     /**
-     * Create the source class
+     * Take the snapshot of the static metamodel to be generated, and mark it as generated.
      * @param entity {@link StaticMetamodelEntity}
+     * @return the snapshot, or empty if the model is not to be generated
      */
-    private void createMetaModelClasses(final StaticMetamodelEntity entity) {
+    private Optional<MetamodelSnapshot> snapshot(final StaticMetamodelEntity entity) {
 
         if (!entity.getTargetEntity().getPersistenceType().isEntity() &&
             !entity.getTargetEntity().getPersistenceType().isEmbeddable()) {
-            return;
+            return Optional.empty();
         }
 
         if (context.isAlreadyGenerated(entity.getQualifiedName())) {
             context.logDebug("Skip model generation : {}", entity.getQualifiedName());
-            return;
+            return Optional.empty();
         }
 
-        ModelClassWriter.of(context, entity).writeFile();
         context.addGenerated(entity);
+        var snapshot = MetamodelSnapshot.of(entity);
+        context.getStats().addEntity(snapshot.getTargetEntityQualifiedName(), snapshot.getAllAttributes().size());
+        return Optional.of(snapshot);
 
     }
 
 
-    private Collection<StaticMetamodelEntity> getStaticMetamodelEntities(RoundEnvironment roundEnv) {
+    /**
+     * Create the source class
+     * @param entity {@link MetamodelSnapshot}
+     */
+    private void createMetaModelClasses(final MetamodelSnapshot entity) {
+        ModelClassWriter.of(context, entity).writeFile();
+        if (context.isAddRepository() && entity.isEntityMetamodel()) {
+            RepositoryClassWriter.of(context, entity).writeFile();
+        }
+    }
 
-        var models = roundEnv.getRootElements().stream()
-            .map(elm -> StaticMetamodelEntity.of(context, elm))
-            .flatMap(Optional::stream)
-            .collect(Collectors.toMap(StaticMetamodelEntity::getTargetEntityQualifiedName, UnaryOperator.identity()));
 
-        models.values().stream()
-            .filter(model -> model.getSuperEntityQualifiedName().isPresent())
-            .forEach(model -> models.get(model.getSuperEntityQualifiedName().get()).addChild(model));
+    /**
+     * Create the source classes, rendering them on a fork-join pool.
+     * The rendered sources are written through the Filer sequentially on the compiler thread.
+     * @param entities the {@link MetamodelSnapshot}s
+     */
+    private void createMetaModelClassesInParallel(final List<MetamodelSnapshot> entities) {
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            var writes = pool.submit(() -> entities.parallelStream()
+                .map(entity -> context.getStats().measure(Phase.RENDERING, () -> render(entity)))
+                .toList()).get();
+            writes.forEach(Runnable::run);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            context.logError("Interrupted : {}", e.getMessage());
+        } catch (ExecutionException e) {
+            context.logError("Problem rendering models : {}", e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-        return models.values();
 
+    /**
+     * Render the source classes.
+     * @param entity {@link MetamodelSnapshot}
+     * @return the write of the rendered sources, to be run on the compiler thread
+     */
+    private Runnable render(final MetamodelSnapshot entity) {
+
+        var model = ModelClassWriter.of(context, entity);
+        var modelSource = model.render();
+        if (!context.isAddRepository() || !entity.isEntityMetamodel()) {
+            return () -> model.writeFile(modelSource);
+        }
+
+        var repository = RepositoryClassWriter.of(context, entity);
+        var repositorySource = repository.render();
+        return () -> {
+            model.writeFile(modelSource);
+            repository.writeFile(repositorySource);
+        };
     }
 
 
-    private Collection<RepositoryTraitType> getRepositoryTraitTypes(RoundEnvironment roundEnv) {
-        return roundEnv.getRootElements().stream()
-            .map(elm -> RepositoryTraitType.of(context, elm))
-            .flatMap(Optional::stream)
-            .toList();
+    /**
+     * Parse the parallelism option.
+     * @param value the value of option
+     * @return the number of threads rendering the sources
+     */
+    private int parallelism(String value) {
+        if (Objects.isNull(value) || value.isBlank()) {
+            return 1;
+        }
+        try {
+            int n = Integer.parseInt(value.strip());
+            return (n > 0) ? n : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException e) {
+            context.logInfo("Ignored invalid option {} : {}", PARALLELISM_OPTION, value);
+            return 1;
+        }
     }
 
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.context;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The elements of a round, grouped by the supported annotation type.
+ * <p>
+ * The elements are looked up with the annotation types resolved by the compiler,
+ * in a single pass, instead of reading the annotation mirrors of every root element.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class AnnotatedElements {
+
+    /** The annotated elements, keyed by the qualified name of annotation type. */
+    private final Map<String, List<Element>> elements;
+
+
+    /**
+     * Constructor.
+     * @param elements the annotated elements
+     */
+    private AnnotatedElements(Map<String, List<Element>> elements) {
+        this.elements = elements;
+    }
+
+
+    /**
+     * Discover the elements annotated with the given annotation types in the round.
+     * @param annotations the annotation types of the round
+     * @param roundEnv the environment of the round
+     * @return the annotated elements
+     */
+    public static AnnotatedElements of(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        Map<String, List<Element>> map = new HashMap<>();
+        if (annotations.isEmpty()) {
+            return new AnnotatedElements(map);
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWithAny(annotations.toArray(TypeElement[]::new))) {
+            for (AnnotationMirror am : element.getAnnotationMirrors()) {
+                Element annotationType = am.getAnnotationType().asElement();
+                if (annotations.contains(annotationType)) {
+                    map.computeIfAbsent(((TypeElement) annotationType).getQualifiedName().toString(),
+                        k -> new ArrayList<>()).add(element);
+                }
+            }
+        }
+        return new AnnotatedElements(map);
+    }
+
+
+    /**
+     * Get the elements annotated with any of the given annotation types.
+     * @param annotationTypes the qualified names of annotation type
+     * @return the annotated elements
+     */
+    public List<Element> get(String... annotationTypes) {
+        if (annotationTypes.length == 1) {
+            return elements.getOrDefault(annotationTypes[0], Collections.emptyList());
+        }
+        List<Element> ret = new ArrayList<>();
+        for (String annotationType : annotationTypes) {
+            ret.addAll(elements.getOrDefault(annotationType, Collections.emptyList()));
+        }
+        return ret;
+    }
+
+}
@@ -20,9 +20,12 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
-import java.util.ArrayList;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -32,6 +35,9 @@ import java.util.Objects;
  */
 public class Context {
 
+    /** The path of the stats resource. */
+    private static final String STATS_RESOURCE_PATH = "META-INF/jpa-fluent-modelgen/";
+
     /** Annotation processing environment. */
     private final ProcessingEnvironment pe;
 
@@ -41,6 +47,12 @@ public class Context {
     /** Generated classes(fqcn) holder. */
     private final Collection<String> generatedClasses;
 
+    /** The statistics of processing. */
+    private final ProcessingStats stats;
+
+    /** The filer. */
+    private final Filer filer;
+
 
     /**
      * Private constructor.
@@ -48,9 +60,22 @@ public class Context {
      * @param debug the mode of debug
      */
     public Context(ProcessingEnvironment pe, boolean debug) {
+        this(pe, debug, ProcessingStats.of(false));
+    }
+
+
+    /**
+     * Constructor.
+     * @param pe the annotation processing environment
+     * @param debug the mode of debug
+     * @param stats the statistics of processing
+     */
+    public Context(ProcessingEnvironment pe, boolean debug, ProcessingStats stats) {
         this.pe = pe;
         this.debug = debug;
-        this.generatedClasses = new ArrayList<>();
+        this.generatedClasses = new HashSet<>();
+        this.stats = stats;
+        this.filer = stats.isEnabled() ? new StatsFiler(pe.getFiler(), stats) : pe.getFiler();
     }
 
 
@@ -68,7 +93,16 @@ public class Context {
      * @return the filer used to create new source, class, or auxiliary files
      */
     public Filer getFiler() {
-        return pe.getFiler();
+        return filer;
+    }
+
+
+    /**
+     * Get the statistics of processing.
+     * @return the statistics of processing
+     */
+    public ProcessingStats getStats() {
+        return stats;
     }
 
 
@@ -90,6 +124,52 @@ public class Context {
     }
 
 
+    /**
+     * Write the report of the statistics as a resource, and the summary as a note.
+     * Does nothing if the statistics are disabled.
+     * The resource has no originating element, so only an aggregating processor is to write it.
+     * @param processor the name of processor
+     */
+    public void writeStats(String processor) {
+        if (!stats.isEnabled()) {
+            return;
+        }
+        var name = STATS_RESOURCE_PATH + "stats.json";
+        try {
+            FileObject fo = pe.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", name);
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+                pw.print(statsReport(processor));
+                pw.flush();
+            }
+            logInfo("{} stats : {}, see {}", processor, stats.summary(), name);
+        } catch (Exception e) {
+            logError("Problem opening file to write stats {} : {}", name, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Get the report of the statistics.
+     * @param processor the name of processor
+     * @return the report as json
+     */
+    protected String statsReport(String processor) {
+        return stats.toJson(processor);
+    }
+
+
+    /**
+     * Write the summary of the statistics as a note, without the report resource.
+     * Does nothing if the statistics are disabled.
+     * @param processor the name of processor
+     */
+    public void logStats(String processor) {
+        if (stats.isEnabled()) {
+            logInfo("{} stats : {}", processor, stats.summary());
+        }
+    }
+
+
     /**
      * Write the debug log message.
      * @param message the message
@@ -111,6 +191,16 @@ public class Context {
     }
 
 
+    /**
+     * Write the warning log message.
+     * @param message the message
+     * @param args the arguments referenced by the format specifiers in this string.
+     */
+    public void logWarn(String message, Object... args) {
+        pe.getMessager().printMessage(Diagnostic.Kind.WARNING, formatted(message, args));
+    }
+
+
     /**
      * Write the error log message.
      * @param message the message
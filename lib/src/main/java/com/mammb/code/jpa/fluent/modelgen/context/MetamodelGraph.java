@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.context;
+
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The graph of static metamodels in a compilation, keyed by the qualified name of target entity.
+ * <p>
+ * The parent entity is resolved once at registration, and the descendants,
+ * the inherited attributes and the merged attributes are computed once and memoized,
+ * so that the writers can ask them repeatedly without re-walking the hierarchy.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class MetamodelGraph {
+
+    /** The registered metamodels, keyed by the qualified name of target entity. */
+    private final Map<String, StaticMetamodelEntity> metamodels;
+
+    /** The qualified name of parent entity, keyed by the qualified name of target entity. */
+    private final Map<String, String> parents;
+
+    /** The children metamodels, keyed by the qualified name of parent entity. */
+    private final Map<String, List<StaticMetamodelEntity>> children;
+
+    /** The memoized descendants, keyed by the qualified name of target entity. */
+    private final Map<String, List<StaticMetamodelEntity>> descendants;
+
+    /** The memoized attributes of super metamodels, keyed by the qualified name of target entity. */
+    private final Map<String, List<StaticMetamodelAttribute>> inheritedAttributes;
+
+    /** The memoized attributes include the attributes of super metamodels, keyed by the qualified name of target entity. */
+    private final Map<String, List<StaticMetamodelAttribute>> allAttributes;
+
+
+    /**
+     * Constructor.
+     */
+    protected MetamodelGraph() {
+        this.metamodels = new LinkedHashMap<>();
+        this.parents = new HashMap<>();
+        this.children = new HashMap<>();
+        this.descendants = new HashMap<>();
+        this.inheritedAttributes = new HashMap<>();
+        this.allAttributes = new HashMap<>();
+    }
+
+
+    /**
+     * Create the empty graph.
+     * @return the metamodel graph
+     */
+    public static MetamodelGraph of() {
+        return new MetamodelGraph();
+    }
+
+
+    /**
+     * Register the given metamodel, and link it to the parent entity.
+     * @param entity the {@link StaticMetamodelEntity}
+     */
+    public void register(StaticMetamodelEntity entity) {
+
+        var name = entity.getTargetEntityQualifiedName();
+        if (metamodels.putIfAbsent(name, entity) != null) {
+            return;
+        }
+
+        entity.getSuperEntityQualifiedName().ifPresent(parent -> {
+            parents.put(name, parent);
+            children.computeIfAbsent(parent, k -> new ArrayList<>()).add(entity);
+            descendants.clear();
+        });
+    }
+
+
+    /**
+     * Get the registered metamodel.
+     * @param name the qualified name of target entity
+     * @return the registered metamodel
+     */
+    public Optional<StaticMetamodelEntity> get(String name) {
+        return Optional.ofNullable(metamodels.get(name));
+    }
+
+
+    /**
+     * Get the metamodel of parent entity.
+     * @param entity the {@link StaticMetamodelEntity}
+     * @return the metamodel of parent entity, if registered
+     */
+    public Optional<StaticMetamodelEntity> getParent(StaticMetamodelEntity entity) {
+        return Optional.ofNullable(parents.get(entity.getTargetEntityQualifiedName())).flatMap(this::get);
+    }
+
+
+    /**
+     * Get the children metamodels.
+     * @param entity the {@link StaticMetamodelEntity}
+     * @return the children metamodels
+     */
+    public List<StaticMetamodelEntity> getChildren(StaticMetamodelEntity entity) {
+        return Collections.unmodifiableList(
+            children.getOrDefault(entity.getTargetEntityQualifiedName(), Collections.emptyList()));
+    }
+
+
+    /**
+     * Get the descendant metamodels.
+     * @param entity the {@link StaticMetamodelEntity}
+     * @return the descendant metamodels
+     */
+    public List<StaticMetamodelEntity> getDescendants(StaticMetamodelEntity entity) {
+
+        var name = entity.getTargetEntityQualifiedName();
+        var ret = descendants.get(name);
+        if (Objects.nonNull(ret)) {
+            return ret;
+        }
+
+        List<StaticMetamodelEntity> list = new ArrayList<>(getChildren(entity));
+        for (StaticMetamodelEntity child : getChildren(entity)) {
+            list.addAll(getDescendants(child));
+        }
+        ret = List.copyOf(list);
+        descendants.put(name, ret);
+        return ret;
+    }
+
+
+    /**
+     * Get the attributes of the metamodel, include the attributes of super metamodels.
+     * @param entity the {@link StaticMetamodelEntity}
+     * @return the attributes
+     */
+    public List<StaticMetamodelAttribute> getAllAttributes(StaticMetamodelEntity entity) {
+
+        var name = entity.getTargetEntityQualifiedName();
+        var ret = allAttributes.get(name);
+        if (Objects.nonNull(ret)) {
+            return ret;
+        }
+
+        var inherited = getInheritedAttributes(entity);
+        List<StaticMetamodelAttribute> list = new ArrayList<>(inherited.size() + entity.getAttributes().size());
+        list.addAll(inherited);
+        list.addAll(entity.getAttributes());
+        ret = List.copyOf(list);
+        allAttributes.put(name, ret);
+        return ret;
+    }
+
+
+    /**
+     * Get the attributes of the super metamodels, in order from the nearest super metamodel.
+     * @param entity the {@link StaticMetamodelEntity}
+     * @return the attributes of the super metamodels
+     */
+    private List<StaticMetamodelAttribute> getInheritedAttributes(StaticMetamodelEntity entity) {
+
+        var name = entity.getTargetEntityQualifiedName();
+        var ret = inheritedAttributes.get(name);
+        if (Objects.nonNull(ret)) {
+            return ret;
+        }
+
+        var superMetamodel = entity.getSuperMetamodel()
+            .map(sup -> get(sup.getTargetEntityQualifiedName()).orElse(sup));
+        if (superMetamodel.isEmpty()) {
+            ret = List.of();
+        } else {
+            List<StaticMetamodelAttribute> list = new ArrayList<>(superMetamodel.get().getAttributes());
+            list.addAll(getInheritedAttributes(superMetamodel.get()));
+            ret = List.copyOf(list);
+        }
+        inheritedAttributes.put(name, ret);
+        return ret;
+    }
+
+}
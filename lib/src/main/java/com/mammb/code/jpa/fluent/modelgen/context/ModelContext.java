@@ -18,9 +18,12 @@ package com.mammb.code.jpa.fluent.modelgen.context;
 import com.mammb.code.jpa.fluent.modelgen.model.RepositoryTraitType;
 import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Context of metamodel enhance process.
@@ -29,8 +32,11 @@ import java.util.List;
  */
 public class ModelContext extends Context {
 
-    /** Generated model classes holder. */
-    private final Collection<StaticMetamodelEntity> generatedModelClasses;
+    /** Generated model classes holder, keyed by the qualified name of metamodel. */
+    private final Map<String, StaticMetamodelEntity> generatedModelClasses;
+
+    /** The context shared by the processors of the compilation. */
+    private final SharedContext shared;
 
     /** RepositoryRootTypes. */
     private final Collection<RepositoryTraitType> repositoryTraits;
@@ -38,8 +44,8 @@ public class ModelContext extends Context {
     /** Add repository option. */
     private final boolean addRepository;
 
-    /** Mode of jakarta or javax. */
-    private boolean jakarta;
+    /** Mode of compact, that generates the models on the base classes of the api. */
+    private boolean compact;
 
 
     /**
@@ -47,13 +53,14 @@ public class ModelContext extends Context {
      * @param pe the annotation processing environment
      * @param debug the mode of debug
      * @param addRepository the mode of add repository
+     * @param stats the statistics of processing
      */
-    protected ModelContext(ProcessingEnvironment pe, boolean debug, boolean addRepository) {
-        super(pe, debug);
-        this.generatedModelClasses = new HashSet<>();
+    protected ModelContext(ProcessingEnvironment pe, boolean debug, boolean addRepository, ProcessingStats stats) {
+        super(pe, debug, stats);
+        this.generatedModelClasses = new LinkedHashMap<>();
+        this.shared = SharedContext.of(pe);
         this.repositoryTraits = new HashSet<>();
         this.addRepository = addRepository;
-        this.jakarta = true;
     }
 
 
@@ -65,7 +72,20 @@ public class ModelContext extends Context {
      * @return the context
      */
     public static ModelContext of(ProcessingEnvironment pe, boolean debug, boolean addRepository) {
-        return new ModelContext(pe, debug, addRepository);
+        return new ModelContext(pe, debug, addRepository, ProcessingStats.of(false));
+    }
+
+
+    /**
+     * Create the context instance.
+     * @param pe processing environment
+     * @param debug the mode of debug
+     * @param addRepository the mode of add repository
+     * @param stats the statistics of processing
+     * @return the context
+     */
+    public static ModelContext of(ProcessingEnvironment pe, boolean debug, boolean addRepository, ProcessingStats stats) {
+        return new ModelContext(pe, debug, addRepository, stats);
     }
 
 
@@ -92,7 +112,7 @@ public class ModelContext extends Context {
      * @param entity the {@link StaticMetamodelEntity}
      */
     public void addGenerated(StaticMetamodelEntity entity) {
-        generatedModelClasses.add(entity);
+        generatedModelClasses.put(entity.getQualifiedName(), entity);
     }
 
 
@@ -111,7 +131,7 @@ public class ModelContext extends Context {
      * @return {@code true} if already generated
      */
     public boolean isAlreadyGenerated(String name) {
-        return generatedModelClasses.stream().anyMatch(entity -> entity.getQualifiedName().equals(name));
+        return generatedModelClasses.containsKey(name);
     }
 
 
@@ -129,7 +149,7 @@ public class ModelContext extends Context {
      * @return jakarta
      */
     public boolean isJakarta() {
-        return jakarta;
+        return shared.isJakarta();
     }
 
 
@@ -138,7 +158,25 @@ public class ModelContext extends Context {
      * @param jakarta jakarta
      */
     public void setJakarta(boolean jakarta) {
-        this.jakarta = jakarta;
+        shared.setJakarta(jakarta);
+    }
+
+
+    /**
+     * Get whether the models are generated in the compact mode.
+     * @return {@code true} if the compact mode
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+
+    /**
+     * Set the compact mode.
+     * @param compact the compact mode
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
     }
 
 
@@ -147,7 +185,69 @@ public class ModelContext extends Context {
      * @return the generated model classes
      */
     public Collection<StaticMetamodelEntity> getGeneratedModelClasses() {
-        return List.copyOf(generatedModelClasses);
+        return List.copyOf(generatedModelClasses.values());
+    }
+
+
+    /**
+     * Get the graph of static metamodels.
+     * @return the graph of static metamodels
+     */
+    public MetamodelGraph getMetamodelGraph() {
+        return shared.getMetamodelGraph();
+    }
+
+
+    /**
+     * Get the annotated elements of the round, discovered once for all the processors.
+     * @param roundEnv the environment of the round
+     * @return the annotated elements
+     */
+    public AnnotatedElements getAnnotatedElements(RoundEnvironment roundEnv) {
+        return shared.discover(this, roundEnv);
+    }
+
+
+    /**
+     * Get the static metamodels of the round, parsed once for all the processors
+     * and registered in the graph of static metamodels.
+     * @param roundEnv the environment of the round
+     * @return the static metamodels
+     */
+    public List<StaticMetamodelEntity> getStaticMetamodelEntities(RoundEnvironment roundEnv) {
+        return shared.getStaticMetamodelEntities(this, roundEnv);
+    }
+
+
+    /**
+     * Share the statistics of the processor, to be reported together with the statistics of the other processors.
+     * @param processor the name of processor
+     */
+    public void shareStats(String processor) {
+        if (getStats().isEnabled()) {
+            shared.addStats(processor, getStats());
+        }
+    }
+
+
+    /**
+     * Get the report of the statistics of all the processors sharing their statistics.
+     * @param processor the name of processor
+     * @return the report as json
+     */
+    @Override
+    protected String statsReport(String processor) {
+        var all = new LinkedHashMap<>(shared.getStats());
+        all.putIfAbsent(processor, getStats());
+        return ProcessingStats.toJson(all);
+    }
+
+
+    /**
+     * Release the context shared by the processors, at the end of processing.
+     */
+    public void releaseShared() {
+        SharedContext.release(pe());
     }
 
 }
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.context;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The statistics of annotation processing.
+ * <p>
+ * The time of each phase is measured exclusively, i.e. the time of a nested phase
+ * is not counted in the enclosing phase. The phases measured on other threads
+ * than the compiler thread (parallel rendering) are counted as the sum of the thread time.
+ * When disabled, the measurement is a plain call.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class ProcessingStats {
+
+    /** The suffixes of the generated sources per entity. */
+    private static final String[] ENTITY_SOURCE_SUFFIXES = { "Model", "Repository_", "Traits_" };
+
+    /** Whether the statistics are recorded. */
+    private final boolean enabled;
+
+    /** The elapsed nanos of each phase. */
+    private final Map<Phase, LongAdder> nanos;
+
+    /** The attribute counts, keyed by the qualified name of entity. */
+    private final Map<String, Integer> entities;
+
+    /** The byte counts, keyed by the name of generated file. */
+    private final Map<String, Long> sources;
+
+    /** The phase measured on each thread. */
+    private final ThreadLocal<Clock> clocks;
+
+    /** The elapsed nanos of the processor. */
+    private long totalNanos;
+
+    /** The number of rounds. */
+    private int rounds;
+
+
+    /**
+     * Constructor.
+     * @param enabled whether the statistics are recorded
+     */
+    protected ProcessingStats(boolean enabled) {
+        this.enabled = enabled;
+        this.nanos = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            nanos.put(phase, new LongAdder());
+        }
+        this.entities = new ConcurrentSkipListMap<>();
+        this.sources = new ConcurrentHashMap<>();
+        this.clocks = ThreadLocal.withInitial(Clock::new);
+    }
+
+
+    /**
+     * Create the statistics.
+     * @param enabled whether the statistics are recorded
+     * @return the statistics
+     */
+    public static ProcessingStats of(boolean enabled) {
+        return new ProcessingStats(enabled);
+    }
+
+
+    /**
+     * Get whether the statistics are recorded.
+     * @return {@code true} if the statistics are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    /**
+     * Measure the given phase.
+     * @param phase the phase
+     * @param supplier the process of the phase
+     * @param <T> the type of result
+     * @return the result of the process
+     */
+    public <T> T measure(Phase phase, Supplier<T> supplier) {
+
+        if (!enabled) {
+            return supplier.get();
+        }
+
+        var clock = clocks.get();
+        var outer = clock.phase;
+        long start = System.nanoTime();
+        if (outer != null) {
+            nanos.get(outer).add(start - clock.mark);
+        }
+        clock.phase = phase;
+        clock.mark = start;
+        try {
+            return supplier.get();
+        } finally {
+            long end = System.nanoTime();
+            nanos.get(phase).add(end - clock.mark);
+            clock.phase = outer;
+            clock.mark = end;
+        }
+    }
+
+
+    /**
+     * Measure the given phase.
+     * @param phase the phase
+     * @param runnable the process of the phase
+     */
+    public void measure(Phase phase, Runnable runnable) {
+        measure(phase, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+
+    /**
+     * Measure a round of the processor.
+     * @param runnable the process of the round
+     */
+    public void measureRound(Runnable runnable) {
+        if (!enabled) {
+            runnable.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            totalNanos += System.nanoTime() - start;
+            rounds++;
+        }
+    }
+
+
+    /**
+     * Record the entity.
+     * @param name the qualified name of entity
+     * @param attributes the number of attributes
+     */
+    public void addEntity(String name, int attributes) {
+        if (enabled) {
+            entities.put(name, attributes);
+        }
+    }
+
+
+    /**
+     * Record the generated file.
+     * @param name the name of generated file
+     * @param bytes the number of bytes written
+     */
+    public void addSource(String name, long bytes) {
+        if (enabled) {
+            sources.merge(name, bytes, Long::sum);
+        }
+    }
+
+
+    /**
+     * Get the report as json.
+     * @param processor the name of processor
+     * @return the report
+     */
+    public String toJson(String processor) {
+
+        var sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"processor\": \"").append(processor).append("\",\n");
+        sb.append("  \"rounds\": ").append(rounds).append(",\n");
+        sb.append("  \"totalNanos\": ").append(totalNanos).append(",\n");
+        sb.append("  \"phaseNanos\": {");
+        sb.append(nanos.entrySet().stream()
+            .map(e -> "\n    \"" + e.getKey().key + "\": " + e.getValue().sum())
+            .collect(Collectors.joining(",")));
+        sb.append("\n  },\n");
+        sb.append("  \"entities\": [");
+        sb.append(entities.entrySet().stream()
+            .map(e -> "\n    { \"name\": \"%s\", \"attributes\": %d, \"bytes\": %d }"
+                .formatted(e.getKey(), e.getValue(), entityBytes(e.getKey())))
+            .collect(Collectors.joining(",")));
+        sb.append(entities.isEmpty() ? "],\n" : "\n  ],\n");
+        sb.append("  \"sources\": [");
+        sb.append(sources.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(e -> "\n    { \"name\": \"%s\", \"bytes\": %d }".formatted(e.getKey(), e.getValue()))
+            .collect(Collectors.joining(",")));
+        sb.append(sources.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+
+    /**
+     * Get the report of the statistics of the processors as json.
+     * @param stats the statistics, keyed by the name of processor
+     * @return the report
+     */
+    public static String toJson(Map<String, ProcessingStats> stats) {
+        var sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"processors\": [");
+        sb.append(stats.entrySet().stream()
+            .map(e -> "\n" + e.getValue().toJson(e.getKey()).indent(4).stripTrailing())
+            .collect(Collectors.joining(",")));
+        sb.append(stats.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+
+    /**
+     * Get the one-line summary.
+     * @return the summary
+     */
+    public String summary() {
+        return "%d rounds, %d entities, %d sources, %d bytes in %s ms (%s)".formatted(
+            rounds,
+            entities.size(),
+            sources.size(),
+            sources.values().stream().mapToLong(Long::longValue).sum(),
+            millis(totalNanos),
+            nanos.entrySet().stream()
+                .map(e -> e.getKey().key + " " + millis(e.getValue().sum()) + " ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+
+    /**
+     * Get the total bytes of the sources generated for the given entity.
+     * @param name the qualified name of entity
+     * @return the total bytes
+     */
+    private long entityBytes(String name) {
+        long bytes = 0;
+        for (String suffix : ENTITY_SOURCE_SUFFIXES) {
+            bytes += sources.getOrDefault(name + suffix, 0L);
+        }
+        return bytes;
+    }
+
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+
+    /**
+     * The phase of processing.
+     */
+    public enum Phase {
+        /** Discovery of the annotated elements. */
+        DISCOVERY("discovery"),
+        /** Building of the models from the elements. */
+        MODEL_BUILDING("modelBuilding"),
+        /** Classification of the type arguments. */
+        CLASSIFICATION("classification"),
+        /** Rendering of the generated sources. */
+        RENDERING("rendering"),
+        /** Creating and writing the files through the Filer. */
+        FILER_IO("filerIo"),
+        ;
+
+        /** The key of the report. */
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+
+    /**
+     * The phase measured on a thread.
+     */
+    private static class Clock {
+        /** The phase being measured. */
+        private Phase phase;
+        /** The start of the current slice of the phase. */
+        private long mark;
+    }
+
+}
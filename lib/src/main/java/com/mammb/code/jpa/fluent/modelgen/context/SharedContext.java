@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.context;
+
+import com.mammb.code.jpa.fluent.modelgen.model.MappableType;
+import com.mammb.code.jpa.fluent.modelgen.model.RepositoryTraitType;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The context shared by the processors of a compilation.
+ * <p>
+ * javac instantiates each processor separately, and Gradle wraps the Filer of each processor,
+ * so each processor keeps its own {@link ModelContext} to write the sources.
+ * The processors of a compilation share the element utilities of the compiler, by which this context is keyed,
+ * so that the elements of a round are discovered and the static metamodels are parsed once for all the processors,
+ * into a single graph of static metamodels.
+ * The processors also share their statistics, that the aggregating processor reports at the end of processing.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class SharedContext {
+
+    /** The supported annotation types of all the processors. */
+    private static final List<String> ANNOTATION_TYPES = List.of(
+        StaticMetamodelEntity.ANNOTATION_TYPE,
+        StaticMetamodelEntity.ANNOTATION_TYPE_LEGACY,
+        RepositoryTraitType.ANNOTATION_TYPE,
+        MappableType.ANNOTATION_TYPE);
+
+    /** The shared contexts, keyed by the element utilities of the compilation. */
+    private static final Map<Elements, SharedContext> contexts = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** The graph of static metamodels. */
+    private final MetamodelGraph metamodelGraph;
+
+    /** Mode of jakarta or javax. */
+    private boolean jakarta;
+
+    /** The statistics of the processors, keyed by the name of processor. */
+    private final Map<String, ProcessingStats> stats;
+
+    /** The round last discovered. */
+    private RoundEnvironment round;
+
+    /** The elements of the round last discovered. */
+    private AnnotatedElements elements;
+
+    /** The static metamodels of the round last discovered, parsed on the first request. */
+    private List<StaticMetamodelEntity> metamodels;
+
+
+    /**
+     * Private constructor.
+     */
+    private SharedContext() {
+        this.metamodelGraph = MetamodelGraph.of();
+        this.stats = new LinkedHashMap<>();
+        this.jakarta = true;
+    }
+
+
+    /**
+     * Get the shared context of the compilation.
+     * @param pe the annotation processing environment
+     * @return the shared context
+     */
+    public static SharedContext of(ProcessingEnvironment pe) {
+        return contexts.computeIfAbsent(pe.getElementUtils(), k -> new SharedContext());
+    }
+
+
+    /**
+     * Release the shared context of the compilation, at the end of processing.
+     * @param pe the annotation processing environment
+     */
+    public static void release(ProcessingEnvironment pe) {
+        contexts.remove(pe.getElementUtils());
+    }
+
+
+    /**
+     * Get the elements of the round annotated with the supported annotation types of all the processors.
+     * The elements are discovered by the first processor asking them in the round.
+     * @param context the context of the processor
+     * @param roundEnv the environment of the round
+     * @return the annotated elements
+     */
+    public synchronized AnnotatedElements discover(ModelContext context, RoundEnvironment roundEnv) {
+        if (round != roundEnv) {
+            Set<TypeElement> annotations = new HashSet<>();
+            for (String name : ANNOTATION_TYPES) {
+                TypeElement type = context.getElementUtils().getTypeElement(name);
+                if (Objects.nonNull(type)) {
+                    annotations.add(type);
+                }
+            }
+            elements = AnnotatedElements.of(annotations, roundEnv);
+            metamodels = null;
+            round = roundEnv;
+        }
+        return elements;
+    }
+
+
+    /**
+     * Get the static metamodels of the round, registered in the graph of static metamodels.
+     * The static metamodels are parsed by the first processor asking them in the round.
+     * @param context the context of the processor
+     * @param roundEnv the environment of the round
+     * @return the static metamodels
+     */
+    public synchronized List<StaticMetamodelEntity> getStaticMetamodelEntities(ModelContext context, RoundEnvironment roundEnv) {
+        var annotated = discover(context, roundEnv);
+        if (Objects.isNull(metamodels)) {
+            metamodels = annotated.get(StaticMetamodelEntity.ANNOTATION_TYPE, StaticMetamodelEntity.ANNOTATION_TYPE_LEGACY).stream()
+                .map(elm -> StaticMetamodelEntity.of(context, elm))
+                .flatMap(Optional::stream)
+                .toList();
+            metamodels.forEach(metamodelGraph::register);
+        }
+        return metamodels;
+    }
+
+
+    /**
+     * Add the statistics of the processor.
+     * @param processor the name of processor
+     * @param processorStats the statistics of the processor
+     */
+    public synchronized void addStats(String processor, ProcessingStats processorStats) {
+        stats.put(processor, processorStats);
+    }
+
+
+    /**
+     * Get the statistics of the processors.
+     * @return the statistics, keyed by the name of processor
+     */
+    public synchronized Map<String, ProcessingStats> getStats() {
+        return new LinkedHashMap<>(stats);
+    }
+
+
+    /**
+     * Get the graph of static metamodels.
+     * @return the graph of static metamodels
+     */
+    public MetamodelGraph getMetamodelGraph() {
+        return metamodelGraph;
+    }
+
+
+    /**
+     * Get jakarta
+     * @return jakarta
+     */
+    public boolean isJakarta() {
+        return jakarta;
+    }
+
+
+    /**
+     * Set jakarta
+     * @param jakarta jakarta
+     */
+    public void setJakarta(boolean jakarta) {
+        this.jakarta = jakarta;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.context;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.ForwardingFileObject;
+import javax.tools.ForwardingJavaFileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The {@link Filer} that records the I/O time and the written bytes to the {@link ProcessingStats}.
+ *
+ * @author Naotsugu Kobayashi
+ */
+class StatsFiler implements Filer {
+
+    /** The delegated filer. */
+    private final Filer filer;
+
+    /** The statistics. */
+    private final ProcessingStats stats;
+
+
+    /**
+     * Constructor.
+     * @param filer the delegated filer
+     * @param stats the statistics
+     */
+    StatsFiler(Filer filer, ProcessingStats stats) {
+        this.filer = filer;
+        this.stats = stats;
+    }
+
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+        var fo = measure(() -> filer.createSourceFile(name, originatingElements));
+        return new ForwardingJavaFileObject<>(fo) {
+            @Override
+            public OutputStream openOutputStream() throws IOException {
+                return new CountingOutputStream(measure(fileObject::openOutputStream), name.toString());
+            }
+        };
+    }
+
+
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+        return measure(() -> filer.createClassFile(name, originatingElements));
+    }
+
+
+    @Override
+    public FileObject createResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+            CharSequence relativeName, Element... originatingElements) throws IOException {
+        var fo = measure(() -> filer.createResource(location, moduleAndPkg, relativeName, originatingElements));
+        return new ForwardingFileObject<>(fo) {
+            @Override
+            public OutputStream openOutputStream() throws IOException {
+                return new CountingOutputStream(measure(fileObject::openOutputStream), relativeName.toString());
+            }
+        };
+    }
+
+
+    @Override
+    public FileObject getResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+            CharSequence relativeName) throws IOException {
+        return measure(() -> filer.getResource(location, moduleAndPkg, relativeName));
+    }
+
+
+    private <T> T measure(IoSupplier<T> supplier) throws IOException {
+        IOException[] thrown = new IOException[1];
+        T ret = stats.measure(ProcessingStats.Phase.FILER_IO, () -> {
+            try {
+                return supplier.get();
+            } catch (IOException e) {
+                thrown[0] = e;
+                return null;
+            }
+        });
+        if (thrown[0] != null) {
+            throw thrown[0];
+        }
+        return ret;
+    }
+
+
+    /**
+     * The supplier that throws {@link IOException}.
+     * @param <T> the type of result
+     */
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+
+    /**
+     * The output stream that counts the written bytes, and measures the write time.
+     */
+    private class CountingOutputStream extends FilterOutputStream {
+
+        /** The name of file. */
+        private final String name;
+
+        /** The number of bytes written. */
+        private long count;
+
+
+        CountingOutputStream(OutputStream out, String name) {
+            super(out);
+            this.name = name;
+        }
+
+
+        @Override
+        public void write(int b) throws IOException {
+            measure(() -> {
+                out.write(b);
+                return null;
+            });
+            count++;
+        }
+
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            measure(() -> {
+                out.write(b, off, len);
+                return null;
+            });
+            count += len;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            measure(() -> {
+                super.close();
+                return null;
+            });
+            stats.addSource(name, count);
+        }
+    }
+
+}
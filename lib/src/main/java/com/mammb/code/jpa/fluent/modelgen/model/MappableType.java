@@ -81,6 +81,15 @@ public class MappableType {
     }
 
 
+    /**
+     * Get the type element.
+     * @return the type element
+     */
+    public TypeElement getElement() {
+        return element;
+    }
+
+
     /**
      * Get name of the mappable type class.
      * @return name of the mappable type class
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.model;
+
+import javax.lang.model.element.TypeElement;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the {@link StaticMetamodelEntity}.
+ * <p>
+ * Everything the model writers need is extracted from the {@code javax.lang.model} API
+ * on the compiler thread, so that the sources can be rendered on other threads.
+ * The element is held only as the originating element of the generated sources.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class MetamodelSnapshot {
+
+    /** Static metamodel type element. */
+    private final TypeElement element;
+
+    /** Qualified name of the static metamodel class. */
+    private final String qualifiedName;
+
+    /** Name of the static metamodel class. */
+    private final String simpleName;
+
+    /** Name of the package. */
+    private final String packageName;
+
+    /** Whether this static metamodel is for Entity. */
+    private final boolean entityMetamodel;
+
+    /** The entity id type. */
+    private final String entityIdType;
+
+    /** The entity id name. */
+    private final String entityIdName;
+
+    /** The entity version name. */
+    private final String entityVersionName;
+
+    /** The attributes, include super class attribute. */
+    private final List<StaticMetamodelAttribute> allAttributes;
+
+
+    /**
+     * Constructor.
+     * @param entity the {@link StaticMetamodelEntity}
+     */
+    protected MetamodelSnapshot(StaticMetamodelEntity entity) {
+        this.element = entity.getElement();
+        this.qualifiedName = entity.getQualifiedName();
+        this.simpleName = entity.getSimpleName();
+        this.packageName = entity.getPackageName();
+        this.entityMetamodel = entity.isEntityMetamodel();
+        this.entityIdType = entity.getEntityIdType().map(Object::toString).orElse(null);
+        this.entityIdName = entity.getEntityIdName().orElse(null);
+        this.entityVersionName = entity.getEntityVersionName().orElse(null);
+        this.allAttributes = List.copyOf(entity.getAllAttributes());
+    }
+
+
+    /**
+     * Take the snapshot of the given {@link StaticMetamodelEntity}.
+     * @param entity the {@link StaticMetamodelEntity}
+     * @return the snapshot
+     */
+    public static MetamodelSnapshot of(StaticMetamodelEntity entity) {
+        return new MetamodelSnapshot(entity);
+    }
+
+
+    /**
+     * Get the static metamodel type element.
+     * @return the static metamodel type element
+     */
+    public TypeElement getElement() {
+        return element;
+    }
+
+
+    /**
+     * Get qualified name of the static metamodel class.
+     * e.g. {@code foo.bar.BuzEntity_}
+     * @return qualified name of the static metamodel class
+     */
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+
+    /**
+     * Get name of the static metamodel class.
+     * e.g. {@code FooEntity_}
+     * @return name of the static metamodel class
+     */
+    public String getSimpleName() {
+        return simpleName;
+    }
+
+
+    /**
+     * Get the name of the package to which this static metamodel belongs.
+     * @return the name of the package
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+
+    /**
+     * Get the entity class name.
+     * @return the entity class name
+     */
+    public String getTargetEntityName() {
+        return simpleName.substring(0, simpleName.length() - 1);
+    }
+
+
+    /**
+     * Get the entity class qualified name.
+     * @return the entity class qualified name
+     */
+    public String getTargetEntityQualifiedName() {
+        return qualifiedName.substring(0, qualifiedName.length() - 1);
+    }
+
+
+    /**
+     * Get whether this static metamodel is for Entity.
+     * @return {@code true} if this static metamodel is for Entity
+     */
+    public boolean isEntityMetamodel() {
+        return entityMetamodel;
+    }
+
+
+    /**
+     * Get the entity id type.
+     * e.g. {@code java.lang.Long}
+     * @return the entity id type
+     */
+    public Optional<String> getEntityIdType() {
+        return Optional.ofNullable(entityIdType);
+    }
+
+
+    /**
+     * Get the entity id name, that is the name of the id attribute.
+     * e.g. {@code id}
+     * @return the entity id name
+     */
+    public Optional<String> getEntityIdName() {
+        return Optional.ofNullable(entityIdName);
+    }
+
+
+    /**
+     * Get the entity version name, that is the name of the {@code @Version} attribute.
+     * e.g. {@code version}
+     * @return the entity version name
+     */
+    public Optional<String> getEntityVersionName() {
+        return Optional.ofNullable(entityVersionName);
+    }
+
+
+    /**
+     * Get the static metamodel attribute list.
+     * Include super class attribute.
+     * @return the static metamodel attribute list
+     */
+    public List<StaticMetamodelAttribute> getAllAttributes() {
+        return allAttributes;
+    }
+
+}
@@ -86,6 +86,15 @@ public class RepositoryTraitType {
     }
 
 
+    /**
+     * Get the type element.
+     * @return the type element
+     */
+    public TypeElement getElement() {
+        return element;
+    }
+
+
     /**
      * Create the extends clause.
      * @param entity {@link StaticMetamodelEntity}
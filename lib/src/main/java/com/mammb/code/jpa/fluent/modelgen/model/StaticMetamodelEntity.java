@@ -21,9 +21,9 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -50,11 +50,8 @@ public class StaticMetamodelEntity {
     /** Static metamodel type attributes. */
     private final List<StaticMetamodelAttribute> attributes;
 
-    /** Static metamodel type attributes. */
-    private final List<StaticMetamodelAttribute> parentAttributes;
-
-    /** Children staticMetamodelEntity. */
-    private final List<StaticMetamodelEntity> children;
+    /** The super entity fqcn. */
+    private Optional<String> superEntityQualifiedName;
 
 
     /**
@@ -66,8 +63,6 @@ public class StaticMetamodelEntity {
         this.context = context;
         this.element = element;
         this.attributes = attributes(context, element.getEnclosedElements());
-        this.parentAttributes = parentAttributes(context, element);
-        this.children = new ArrayList<>();
         context.setJakarta(annotationTypes(element).contains(ANNOTATION_TYPE));
     }
 
@@ -142,17 +137,29 @@ public class StaticMetamodelEntity {
      * @return the super entity fqcn. MappedSuperclass is not included.
      */
     public Optional<String> getSuperEntityQualifiedName() {
-        var name = getSuperQualifiedName();
-        if (name.isBlank()) {
-            return Optional.empty();
-        }
-        if (context.getElementUtils().getTypeElement(name).getAnnotationMirrors().stream()
-            .map(am -> am.getAnnotationType().toString())
-            .map(PersistenceType::of)
-            .anyMatch(PersistenceType::isEntity)) {
-            return Optional.of(name);
+        if (Objects.nonNull(superEntityQualifiedName)) {
+            return superEntityQualifiedName;
         }
-        return Optional.empty();
+        var name = getSuperQualifiedName();
+        superEntityQualifiedName = (!name.isBlank() &&
+            context.getElementUtils().getTypeElement(name).getAnnotationMirrors().stream()
+                .map(am -> am.getAnnotationType().toString())
+                .map(PersistenceType::of)
+                .anyMatch(PersistenceType::isEntity))
+            ? Optional.of(name)
+            : Optional.empty();
+        return superEntityQualifiedName;
+    }
+
+
+    /**
+     * Get the static metamodel of the superclass, if the superclass is a static metamodel.
+     * MappedSuperclass is included.
+     * @return the static metamodel of the superclass
+     */
+    public Optional<StaticMetamodelEntity> getSuperMetamodel() {
+        Element elem = context.getTypeUtils().asElement(element.getSuperclass());
+        return Objects.isNull(elem) ? Optional.empty() : of(context, elem);
     }
 
 
@@ -200,9 +207,7 @@ public class StaticMetamodelEntity {
      * @return the static metamodel attribute list
      */
     public List<StaticMetamodelAttribute> getAllAttributes() {
-        var ret = new ArrayList<>(parentAttributes);
-        ret.addAll(attributes);
-        return ret;
+        return context.getMetamodelGraph().getAllAttributes(this);
     }
 
 
@@ -268,28 +273,6 @@ public class StaticMetamodelEntity {
     }
 
 
-    /**
-     * Create the {@link StaticMetamodelAttribute}s from the given typeElement super class.
-     * @param context the context of processing
-     * @param element the static metamodel type element
-     * @return the list of StaticMetamodelAttributes
-     */
-    private static List<StaticMetamodelAttribute> parentAttributes(ModelContext context, TypeElement element) {
-        List<StaticMetamodelAttribute> attributes = new ArrayList<>();
-        TypeMirror superclass = element.getSuperclass();
-        while (Objects.nonNull(superclass)) {
-            Element elem = context.getTypeUtils().asElement(superclass);
-            if (isStaticMetamodel(elem) && elem instanceof TypeElement typeElement) {
-                attributes.addAll(attributes(context, typeElement.getEnclosedElements()));
-                superclass = typeElement.getSuperclass();
-            } else {
-                break;
-            }
-        }
-        return attributes;
-    }
-
-
     /**
      * Get whether this static metamodel is for Entity.
      * @return {@code true} if this static metamodel is for Entity
@@ -314,6 +297,30 @@ public class StaticMetamodelEntity {
     }
 
 
+    /**
+     * Get the entity id name, that is the name of the id attribute.
+     * e.g. {@code id}
+     * @return the entity id name
+     */
+    public Optional<String> getEntityIdName() {
+        return isEntityMetamodel()
+            ? findIdField(getTargetEntityTypeElement()).map(e -> e.getSimpleName().toString())
+            : Optional.empty();
+    }
+
+
+    /**
+     * Get the entity version name, that is the name of the {@code @Version} attribute.
+     * e.g. {@code version}
+     * @return the entity version name
+     */
+    public Optional<String> getEntityVersionName() {
+        return isEntityMetamodel()
+            ? findVersionField(getTargetEntityTypeElement()).map(e -> e.getSimpleName().toString())
+            : Optional.empty();
+    }
+
+
     /**
      * Find id field.
      * @param element {@link TypeElement}
@@ -333,11 +340,23 @@ public class StaticMetamodelEntity {
 
 
     /**
-     * Add the child {@link StaticMetamodelEntity}.
-     * @param child the child {@link StaticMetamodelEntity}
+     * Find version field.
+     * @param element {@link TypeElement}
+     * @return the VariableElement of version
      */
-    public void addChild(StaticMetamodelEntity child) {
-        children.add(child);
+    private Optional<VariableElement> findVersionField(TypeElement element) {
+
+        if (element == null || element.getSuperclass().getKind() == TypeKind.NONE) {
+            return Optional.empty();
+        }
+        return ElementFilter.fieldsIn(element.getEnclosedElements()).stream()
+            .filter(e -> e.getAnnotationMirrors().stream()
+                .map(AnnotationMirror::getAnnotationType)
+                .map(Object::toString)
+                .anyMatch(ann -> ann.equals("jakarta.persistence.Version") || ann.equals("javax.persistence.Version")))
+            .findFirst()
+            .or(() -> findVersionField((TypeElement) context.getTypeUtils().asElement(element.getSuperclass())));
+
     }
 
 
@@ -346,11 +365,7 @@ public class StaticMetamodelEntity {
      * @return the descendants
      */
     public List<StaticMetamodelEntity> getDescendants() {
-        List<StaticMetamodelEntity> ret = new ArrayList<>(children);
-        for (StaticMetamodelEntity e : children) {
-            ret.addAll(e.getDescendants());
-        }
-        return ret;
+        return context.getMetamodelGraph().getDescendants(this);
     }
 
 }
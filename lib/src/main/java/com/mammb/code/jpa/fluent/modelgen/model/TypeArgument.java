@@ -16,6 +16,7 @@
 package com.mammb.code.jpa.fluent.modelgen.model;
 
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.context.ProcessingStats;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.type.TypeMirror;
@@ -23,31 +24,35 @@ import java.util.Objects;
 
 /**
  * Metamodel attribute type argument.
+ * <p>
+ * The type argument is classified eagerly on creation, and holds no reference to the
+ * {@code javax.lang.model} API afterwards. So it can be read from any thread.
  * @author Naotsugu Kobayashi
  */
 public class TypeArgument {
 
-    /** Context of processing. */
-    private final ModelContext context;
-
-    /** Type argument mirror. */
-    private final TypeMirror typeMirror;
-
-    /** Type argument mirror element. */
-    private final Element typeMirrorElement;
+    /** Type argument name. */
+    private final String name;
 
     /** Persistence type. */
     private final PersistenceType persistenceType;
 
+    /** Whether the type is a number. */
+    private final boolean number;
+
+    /** Whether the type is a comparable. */
+    private final boolean comparable;
+
 
     /**
      * Private constructor.
      */
     private TypeArgument(ModelContext context, TypeMirror typeMirror) {
-        this.context = context;
-        this.typeMirror = typeMirror;
-        this.typeMirrorElement = context.getTypeUtils().asElement(typeMirror);
+        Element typeMirrorElement = context.getTypeUtils().asElement(typeMirror);
+        this.name = typeMirror.toString();
         this.persistenceType = asPersistenceType(typeMirrorElement);
+        this.number = isAssignable(context, typeMirrorElement, Number.class);
+        this.comparable = isAssignable(context, typeMirrorElement, Comparable.class);
     }
 
 
@@ -58,7 +63,8 @@ public class TypeArgument {
      * @return the type argument
      */
     public static TypeArgument of(ModelContext context, TypeMirror typeMirror) {
-        return new TypeArgument(context, typeMirror);
+        return context.getStats().measure(ProcessingStats.Phase.CLASSIFICATION,
+            () -> new TypeArgument(context, typeMirror));
     }
 
 
@@ -67,7 +73,7 @@ public class TypeArgument {
      * @return the attribute type argument name
      */
     public String getName() {
-        return typeMirror.toString();
+        return name;
     }
 
 
@@ -103,7 +109,7 @@ public class TypeArgument {
      * @return if {@link PersistenceType} is a number, then {@code true}
      */
     public boolean isNumber() {
-        return isAssignable(Number.class);
+        return number;
     }
 
 
@@ -112,7 +118,7 @@ public class TypeArgument {
      * @return if {@link PersistenceType} is a comparable, then {@code true}
      */
     public boolean isComparable() {
-        return isAssignable(Comparable.class);
+        return comparable;
     }
 
 
@@ -135,10 +141,10 @@ public class TypeArgument {
     }
 
 
-    private boolean isAssignable(Class<?> clazz) {
-        return typeMirrorElement.getKind().isClass() &&
+    private static boolean isAssignable(ModelContext context, Element elm, Class<?> clazz) {
+        return Objects.nonNull(elm) && elm.getKind().isClass() &&
             context.getTypeUtils().isAssignable(
-                typeMirrorElement.asType(),
+                elm.asType(),
                 context.getTypeUtils().erasure(
                     context.getElementUtils().getTypeElement(clazz.getCanonicalName()).asType()));
     }
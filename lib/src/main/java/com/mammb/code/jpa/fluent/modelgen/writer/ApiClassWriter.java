@@ -18,8 +18,10 @@ package com.mammb.code.jpa.fluent.modelgen.writer;
 import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
 
+import javax.lang.model.element.Element;
 import javax.tools.FileObject;
 import java.io.PrintWriter;
+import java.util.Collection;
 import java.util.Objects;
 
 /**
@@ -47,28 +49,48 @@ public class ApiClassWriter {
     public static final String ROOT_SOURCE = "RootSource";
     /** The name of Typed class. */
     public static final String TYPED = "Typed";
+    /** The name of Filter class. */
+    public static final String FILTER = "Filter";
+    /** The name of Parameters class. */
+    public static final String PARAMETERS = "Parameters";
+    /** The name of QueryTemplate class. */
+    public static final String QUERY_TEMPLATE = "QueryTemplate";
+    /** The name of Keyset class. */
+    public static final String KEYSET = "Keyset";
+    /** The name of Projection class. */
+    public static final String PROJECTION = "Projection";
+    /** The name of Nodes class. */
+    public static final String NODES = "Nodes";
+    /** The name of Hints class. */
+    public static final String HINTS = "Hints";
 
 
     /** Context of processing. */
     private final ModelContext context;
 
+    /** The originating elements of api classes. */
+    private final Element[] originatingElements;
+
 
     /**
      * Constructor.
      * @param context the context of processing
+     * @param originatingElements the originating elements of api classes
      */
-    protected ApiClassWriter(ModelContext context) {
+    protected ApiClassWriter(ModelContext context, Element[] originatingElements) {
         this.context = context;
+        this.originatingElements = originatingElements;
     }
 
 
     /**
      * Create a criteria writer instance.
      * @param context the context of processing
+     * @param originatingElements the originating elements of api classes
      * @return the criteria class writer
      */
-    public static ApiClassWriter of(ModelContext context) {
-        return new ApiClassWriter(context);
+    public static ApiClassWriter of(ModelContext context, Collection<? extends Element> originatingElements) {
+        return new ApiClassWriter(context, originatingElements.toArray(Element[]::new));
     }
 
 
@@ -83,6 +105,13 @@ public class ApiClassWriter {
         writeBuilderAwareClass();
         writeRootAwareClass();
         writeCriteriaClass();
+        writeHintsClass();
+        writeFilterClass();
+        writeParametersClass();
+        writeQueryTemplateClass();
+        writeKeysetClass();
+        writeProjectionClass();
+        writeNodesClass();
         writeRepositoryClass();
     }
 
@@ -99,7 +128,7 @@ public class ApiClassWriter {
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + ROOT_SOURCE);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + ROOT_SOURCE, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -156,7 +185,7 @@ public class ApiClassWriter {
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(PACKAGE_NAME + "." + QUERY_AWARE);
+            FileObject fo = context.getFiler().createSourceFile(PACKAGE_NAME + "." + QUERY_AWARE, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -196,7 +225,7 @@ public class ApiClassWriter {
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(PACKAGE_NAME + "." + BUILDER_AWARE);
+            FileObject fo = context.getFiler().createSourceFile(PACKAGE_NAME + "." + BUILDER_AWARE, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -236,7 +265,7 @@ public class ApiClassWriter {
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + ROOT_AWARE);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + ROOT_AWARE, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -284,7 +313,7 @@ public class ApiClassWriter {
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + CRITERIA);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + CRITERIA, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -292,16 +321,28 @@ public class ApiClassWriter {
                 pw.println();
 
                 imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.Tuple");
+                imports.add("jakarta.persistence.criteria.AbstractQuery");
                 imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.CriteriaQuery");
                 imports.add("jakarta.persistence.criteria.Expression");
+                imports.add("jakarta.persistence.criteria.Fetch");
+                imports.add("jakarta.persistence.criteria.FetchParent");
+                imports.add("jakarta.persistence.criteria.From");
+                imports.add("jakarta.persistence.criteria.Join");
+                imports.add("jakarta.persistence.criteria.JoinType");
                 imports.add("jakarta.persistence.criteria.Order");
                 imports.add("jakarta.persistence.criteria.Path");
                 imports.add("jakarta.persistence.criteria.Predicate");
                 imports.add("jakarta.persistence.criteria.Selection");
+                imports.add("jakarta.persistence.criteria.Subquery");
+                imports.add("jakarta.persistence.metamodel.Attribute");
+                imports.add("jakarta.persistence.metamodel.PluralAttribute");
+                imports.add("jakarta.persistence.metamodel.SingularAttribute");
                 imports.add("java.util.Collection");
                 imports.add("java.util.Objects");
+                imports.add("java.util.function.Function");
                 imports.add("java.util.function.Supplier");
-                imports.add("java.util.regex.Pattern");
                 imports.add("java.math.BigDecimal");
                 imports.add("java.math.BigInteger");
                 imports.add("java.util.Arrays");
@@ -324,25 +365,51 @@ public class ApiClassWriter {
 
                         interface CommonType extends BuilderAware {}
 
+                        // the paths and the expressions are resolved lazily, exactly once per instance,
+                        // so that the predicates built on the same instance share the joins of the path.
+                        // the path of an attribute holds its parent and the attribute instead of a capturing lambda,
+                        // and an expression already made by the builder is held as resolved
+
                         public static class AnyPath<E> implements AnyExpression<E, Path<E>>, CommonType {
                             private final Supplier<Path<E>> path;
+                            private final Supplier<? extends Path<?>> parent;
+                            private final SingularAttribute<?, E> attribute;
                             private final CriteriaBuilder builder;
+                            private Path<E> resolved;
                             public AnyPath(Supplier<Path<E>> path, CriteriaBuilder builder) {
                                 this.path = path;
+                                this.parent = null;
+                                this.attribute = null;
+                                this.builder = builder;
+                            }
+                            public AnyPath(Supplier<? extends Path<?>> parent, SingularAttribute<?, E> attribute, CriteriaBuilder builder) {
+                                this.path = null;
+                                this.parent = parent;
+                                this.attribute = attribute;
                                 this.builder = builder;
                             }
-                            @Override public Path<E> get() { return path.get(); }
+                            @Override public Path<E> get() { return resolved == null ? (resolved = resolve()) : resolved; }
                             @Override public CriteriaBuilder builder() { return builder; }
+                            private Path<E> resolve() {
+                                return (path != null) ? path.get()
+                                    : ((Path<Object>) parent.get()).get((SingularAttribute<Object, E>) attribute);
+                            }
                         }
 
                         public static class AnyExp<E> implements AnyExpression<E, Expression<E>>, CommonType {
                             private final Supplier<Expression<E>> expression;
                             private final CriteriaBuilder builder;
+                            private Expression<E> resolved;
                             public AnyExp(Supplier<Expression<E>> expression, CriteriaBuilder builder) {
                                 this.expression = expression;
                                 this.builder = builder;
                             }
-                            @Override public Expression<E> get() { return expression.get(); }
+                            public AnyExp(Expression<E> expression, CriteriaBuilder builder) {
+                                this.expression = null;
+                                this.builder = builder;
+                                this.resolved = expression;
+                            }
+                            @Override public Expression<E> get() { return resolved == null ? (resolved = expression.get()) : resolved; }
                             @Override public CriteriaBuilder builder() { return builder; }
                         }
 
@@ -351,6 +418,9 @@ public class ApiClassWriter {
                             public ComparablePath(Supplier<Path<E>> path, CriteriaBuilder builder) {
                                 super(path, builder);
                             }
+                            public ComparablePath(Supplier<? extends Path<?>> parent, SingularAttribute<?, E> attribute, CriteriaBuilder builder) {
+                                super(parent, attribute, builder);
+                            }
                         }
 
                         public static class ComparableExp<E extends Comparable<? super E>>
@@ -358,50 +428,87 @@ public class ApiClassWriter {
                             public ComparableExp(Supplier<Expression<E>> expression, CriteriaBuilder builder) {
                                 super(expression, builder);
                             }
+                            public ComparableExp(Expression<E> expression, CriteriaBuilder builder) {
+                                super(expression, builder);
+                            }
                         }
 
                         public static class StringPath extends AnyPath<String> implements StringExpression<Path<String>>, CommonType {
                             public StringPath(Supplier<Path<String>> path, CriteriaBuilder builder) {
                                 super(path, builder);
                             }
+                            public StringPath(Supplier<? extends Path<?>> parent, SingularAttribute<?, String> attribute, CriteriaBuilder builder) {
+                                super(parent, attribute, builder);
+                            }
                         }
 
                         public static class StringExp extends AnyExp<String> implements StringExpression<Expression<String>>, CommonType {
                             public StringExp(Supplier<Expression<String>> expression, CriteriaBuilder builder) {
                                 super(expression, builder);
                             }
+                            public StringExp(Expression<String> expression, CriteriaBuilder builder) {
+                                super(expression, builder);
+                            }
                         }
 
                         public static class BooleanPath extends AnyPath<Boolean> implements BooleanExpression<Path<Boolean>>, CommonType {
                             public BooleanPath(Supplier<Path<Boolean>> path, CriteriaBuilder builder) {
                                 super(path, builder);
                             }
+                            public BooleanPath(Supplier<? extends Path<?>> parent, SingularAttribute<?, Boolean> attribute, CriteriaBuilder builder) {
+                                super(parent, attribute, builder);
+                            }
                         }
                         public static class BooleanExp extends AnyExp<Boolean> implements BooleanExpression<Expression<Boolean>>, CommonType {
                             public BooleanExp(Supplier<Expression<Boolean>> expression, CriteriaBuilder builder) {
                                 super(expression, builder);
                             }
+                            public BooleanExp(Expression<Boolean> expression, CriteriaBuilder builder) {
+                                super(expression, builder);
+                            }
                         }
 
                         public static class NumberPath<T extends Number> extends AnyPath<T> implements NumberExpression<T, Path<T>>, CommonType {
                             public NumberPath(Supplier<Path<T>> path, CriteriaBuilder builder) { super(path, builder); }
+                            public NumberPath(Supplier<? extends Path<?>> parent, SingularAttribute<?, T> attribute, CriteriaBuilder builder) {
+                                super(parent, attribute, builder);
+                            }
                         }
 
                         public static class NumberExp<T extends Number> extends AnyExp<T> implements NumberExpression<T, Expression<T>>, CommonType {
                             public NumberExp(Supplier<Expression<T>> expression, CriteriaBuilder builder) {
                                 super(expression, builder);
                             }
+                            public NumberExp(Expression<T> expression, CriteriaBuilder builder) {
+                                super(expression, builder);
+                            }
                         }
 
                         public static class AnyCollectionExp<C extends Collection<?>, T extends Expression<C>> implements AnyCollectionExpression<C, T>, CommonType {
                             private final Supplier<T> expression;
+                            private final Supplier<? extends Path<?>> parent;
+                            private final PluralAttribute<?, C, ?> attribute;
                             private final CriteriaBuilder builder;
+                            private T resolved;
                             public AnyCollectionExp(Supplier<T> expression, CriteriaBuilder builder) {
                                 this.expression = expression;
+                                this.parent = null;
+                                this.attribute = null;
                                 this.builder = builder;
                             }
-                            @Override public T get() { return expression.get(); }
+                            public AnyCollectionExp(Supplier<? extends Path<?>> parent, PluralAttribute<?, C, ?> attribute, CriteriaBuilder builder) {
+                                this.expression = null;
+                                this.parent = parent;
+                                this.attribute = attribute;
+                                this.builder = builder;
+                            }
+                            @Override public T get() { return resolved == null ? (resolved = resolve()) : resolved; }
                             @Override public CriteriaBuilder builder() { return builder; }
+                            @SuppressWarnings("rawtypes")
+                            private T resolve() {
+                                return (expression != null) ? expression.get()
+                                    : (T) ((Path<Object>) parent.get()).get((PluralAttribute) attribute);
+                            }
                         }
 
                         public static class CollectionExp<E, C extends Collection<E>, T extends Expression<C>>
@@ -409,71 +516,151 @@ public class ApiClassWriter {
                             public CollectionExp(Supplier<T> expression, CriteriaBuilder builder) {
                                 super(expression, builder);
                             }
+                            public CollectionExp(Supplier<? extends Path<?>> parent, PluralAttribute<?, C, E> attribute, CriteriaBuilder builder) {
+                                super(parent, attribute, builder);
+                            }
                         }
 
                         // ------------------------------------------------------------------------
 
+                        // the predicates of values bind the values through parameter expressions
+                        // while a query is built in Parameters#collect, so that the query keeps its shape for any values.
+                        // the predicates are recorded with their operation and operands, that QueryTemplate keys the query by
+
                         public interface AnyExpression<E, T extends Expression<E>> extends Supplier<T>, CommonType {
                             T get();
-                            default Predicate eq(AnyExpression<E, ?> y) { return builder().equal(get(), y.get()); }
-                            default Predicate eq(Expression<?> y) { return builder().equal(get(), y); }
-                            default Predicate eq(Object y) { return isEmpty(y) ? null : builder().equal(get(), y); }
-                            default Predicate ne(AnyExpression<E, ?> y) { return builder().notEqual(get(), y.get()); }
-                            default Predicate ne(Expression<?> y) { return builder().notEqual(get(), y); }
-                            default Predicate ne(Object y) { return isEmpty(y) ? null : builder().notEqual(get(), y); }
-                            default Predicate isNull() { return builder().isNull(get()); }
-                            default Predicate nonNull() { return builder().isNotNull(get()); }
+                            default Predicate eq(AnyExpression<E, ?> y) { return eq((Expression<?>) y.get()); }
+                            default Predicate eq(Expression<?> y) { return Parameters.record("eq", builder().equal(get(), y), get(), y); }
+                            default Predicate eq(Object y) { return isEmpty(y) ? null : Parameters.isBinding() ? eq(Parameters.bind(builder(), y)) : builder().equal(get(), y); }
+                            default Predicate ne(AnyExpression<E, ?> y) { return ne((Expression<?>) y.get()); }
+                            default Predicate ne(Expression<?> y) { return Parameters.record("ne", builder().notEqual(get(), y), get(), y); }
+                            default Predicate ne(Object y) { return isEmpty(y) ? null : Parameters.isBinding() ? ne(Parameters.bind(builder(), y)) : builder().notEqual(get(), y); }
+                            default Predicate isNull() { return Parameters.record("isNull", builder().isNull(get()), get()); }
+                            default Predicate nonNull() { return Parameters.record("nonNull", builder().isNotNull(get()), get()); }
                             default Predicate in(AnyExpression<E, ?>... values) {
-                                return get().in(Arrays.stream(values).map(AnyExpression::get).toArray(Expression<?>[]::new));
+                                Expression<?>[] expressions = new Expression<?>[values.length];
+                                for (int i = 0; i < values.length; i++) {
+                                    expressions[i] = values[i].get();
+                                }
+                                return in(expressions);
+                            }
+                            default Predicate in(Expression<?>... values) { return Parameters.record("in", get().in(values), operands(get(), values)); }
+                            default Predicate in(Expression<Collection<?>> values) { return Parameters.record("in", get().in(values), get(), values); }
+                            default Predicate in(Collection<?> values) { return isBindable(values) ? inChunks(this, values.toArray(), Integer.MAX_VALUE) : get().in(values); }
+                            default Predicate in(Object... values) { return isBindable(values) ? inChunks(this, values, Integer.MAX_VALUE) : get().in(values); }
+                            default Predicate in(Subquery<? extends E> subquery) { return get().in(subquery); }
+                            default Predicate inChunks(Collection<?> values) { return inChunks(values, 1000); }
+                            // no values match no rows, as the in predicate of an empty list
+                            default Predicate inChunks(Collection<?> values, int chunkSize) {
+                                if (chunkSize <= 0) {
+                                    throw new IllegalArgumentException("The chunk size must be positive : " + chunkSize);
+                                }
+                                return (values == null || values.isEmpty())
+                                    ? Parameters.record("none", builder().disjunction())
+                                    : inChunks(this, values.toArray(), chunkSize);
                             }
-                            default Predicate in(Expression<?>... values) { return get().in(values); }
-                            default Predicate in(Expression<Collection<?>> values) { return get().in(values); }
-                            default Predicate in(Collection<?> values) { return get().in(values); }
-                            default Predicate in(Object... values) { return get().in(values); }
                             default Order asc() { return builder().asc(get()); }
                             default Order desc() { return builder().desc(get()); }
-                            default NumberExp<Long> count() { return new NumberExp<>(() -> builder().count(get()), builder()); }
-                            default NumberExp<Long> countDistinct() { return new NumberExp<>(() -> builder().countDistinct(get()), builder()); }
+                            default NumberExp<Long> count() { return new NumberExp<>(builder().count(get()), builder()); }
+                            default NumberExp<Long> countDistinct() { return new NumberExp<>(builder().countDistinct(get()), builder()); }
+
+                            // the IN predicates of the chunks of the size OR'ed, each chunk padded up to the power of two
+                            // with its last value, so that a few statement shapes serve the lists of any size
+                            private static Predicate inChunks(AnyExpression<?, ?> x, Object[] values, int chunkSize) {
+                                boolean binding = isBindable(values);
+                                Predicate[] chunks = new Predicate[(int) ((values.length + (long) chunkSize - 1) / chunkSize)];
+                                for (int i = 0; i < chunks.length; i++) {
+                                    int from = i * chunkSize;
+                                    int size = Math.min(chunkSize, values.length - from);
+                                    int padded = (size == 1) ? 1 : (int) Math.min(Long.highestOneBit(size - 1L) << 1, chunkSize);
+                                    Object[] chunk = Arrays.copyOfRange(values, from, from + Math.max(size, padded));
+                                    Arrays.fill(chunk, size, chunk.length, values[from + size - 1]);
+                                    if (binding) {
+                                        Expression<?>[] parameters = new Expression<?>[chunk.length];
+                                        for (int j = 0; j < chunk.length; j++) {
+                                            parameters[j] = Parameters.bind(x.builder(), chunk[j]);
+                                        }
+                                        chunks[i] = x.in(parameters);
+                                    } else {
+                                        chunks[i] = x.get().in(chunk);
+                                    }
+                                }
+                                return chunks.length == 1 ? chunks[0] : x.builder().or(chunks);
+                            }
+
+                            // the values are bound while a query is built, if there are values and none of them is null
+                            private static boolean isBindable(Collection<?> values) {
+                                return Parameters.isBinding() && values != null && !values.isEmpty() && values.stream().noneMatch(Objects::isNull);
+                            }
+                            private static boolean isBindable(Object[] values) {
+                                return isBindable(values == null ? null : Arrays.asList(values));
+                            }
+
+                            private static Expression<?>[] operands(Expression<?> x, Expression<?>[] values) {
+                                Expression<?>[] operands = new Expression<?>[values.length + 1];
+                                operands[0] = x;
+                                System.arraycopy(values, 0, operands, 1, values.length);
+                                return operands;
+                            }
                         }
 
                         public interface ComparableExpression<E extends Comparable<? super E>, T extends Expression<E>>
                                 extends Supplier<T>, AnyExpression<E, T>, CommonType {
                             T get();
-                            default Predicate gt(Expression<? extends E> y) { return builder().greaterThan(get(), y); }
-                            default Predicate gt(E y) { return isEmpty(y) ? null : builder().greaterThan(get(), y); }
-                            default Predicate ge(Expression<? extends E> y) { return builder().greaterThanOrEqualTo(get(), y); }
-                            default Predicate ge(E y) { return isEmpty(y) ? null : builder().greaterThanOrEqualTo(get(), y); }
-                            default Predicate lt(Expression<? extends E> y) { return builder().lessThan(get(), y); }
-                            default Predicate lt(E y) { return isEmpty(y) ? null : builder().lessThan(get(), y); }
-                            default Predicate le(Expression<? extends E> y) { return builder().lessThanOrEqualTo(get(), y); }
-                            default Predicate le(E y) { return isEmpty(y) ? null : builder().lessThanOrEqualTo(get(), y); }
-                            default Predicate between(Expression<? extends E> x, Expression<? extends E> y) { return builder().between(get(), x, y); }
+                            default Predicate gt(Expression<? extends E> y) { return Parameters.record("gt", builder().greaterThan(get(), y), get(), y); }
+                            default Predicate gt(E y) { return isEmpty(y) ? null : Parameters.isBinding() ? gt(Parameters.bind(builder(), y)) : builder().greaterThan(get(), y); }
+                            default Predicate ge(Expression<? extends E> y) { return Parameters.record("ge", builder().greaterThanOrEqualTo(get(), y), get(), y); }
+                            default Predicate ge(E y) { return isEmpty(y) ? null : Parameters.isBinding() ? ge(Parameters.bind(builder(), y)) : builder().greaterThanOrEqualTo(get(), y); }
+                            default Predicate lt(Expression<? extends E> y) { return Parameters.record("lt", builder().lessThan(get(), y), get(), y); }
+                            default Predicate lt(E y) { return isEmpty(y) ? null : Parameters.isBinding() ? lt(Parameters.bind(builder(), y)) : builder().lessThan(get(), y); }
+                            default Predicate le(Expression<? extends E> y) { return Parameters.record("le", builder().lessThanOrEqualTo(get(), y), get(), y); }
+                            default Predicate le(E y) { return isEmpty(y) ? null : Parameters.isBinding() ? le(Parameters.bind(builder(), y)) : builder().lessThanOrEqualTo(get(), y); }
+                            default Predicate between(Expression<? extends E> x, Expression<? extends E> y) { return Parameters.record("between", builder().between(get(), x, y), get(), x, y); }
                             default Predicate between(E x, E y) {
                                 return (isEmpty(x) && isEmpty(y)) ? null
                                     : isEmpty(y) ? ge(x)
                                     : isEmpty(x) ? le(y)
+                                    : Parameters.isBinding() ? between(Parameters.bind(builder(), x), Parameters.bind(builder(), y))
                                     : builder().between(get(), x, y);
                             }
-                            default ComparableExp<E> max() { return new ComparableExp<>(() -> builder().greatest(get()), builder()); }
-                            default ComparableExp<E> min() { return new ComparableExp<>(() -> builder().least(get()), builder()); }
+                            default ComparableExp<E> max() { return new ComparableExp<>(builder().greatest(get()), builder()); }
+                            default ComparableExp<E> min() { return new ComparableExp<>(builder().least(get()), builder()); }
                         }
 
                         public interface StringExpression<T extends Expression<String>>
                                 extends Supplier<T>, AnyExpression<String, T>, ComparableExpression<String, T>, CommonType {
                             T get();
-                            default Predicate like(Expression<String> pattern) { return builder().like(get(), pattern, '\\\\'); }
-                            default Predicate like(String pattern) { return isEmpty(pattern) ? null : builder().like(get(), escaped(pattern), '\\\\'); }
-                            default Predicate likePartial(String pattern) { return isEmpty(pattern) ? null : builder().like(get(), escapedPartial(pattern), '\\\\'); }
-                            default Predicate notLike(Expression<String> pattern) { return builder().notLike(get(), pattern); }
-                            default Predicate notLike(String pattern) { return isEmpty(pattern) ? null : builder().notLike(get(), escaped(pattern), '\\\\'); }
-                            default Predicate notLikePartial(String pattern) { return isEmpty(pattern) ? null : builder().notLike(get(), escapedPartial(pattern), '\\\\'); }
-
-                            Pattern ESCAPE_PATTERN = Pattern.compile("([%%_\\\\\\\\])");
-                            private static String escaped(String str) {
-                                return ESCAPE_PATTERN.matcher(str).replaceAll("\\\\\\\\$1") + "%%";
+                            default Predicate like(Expression<String> pattern) { return Parameters.record("like", builder().like(get(), pattern, '\\\\'), get(), pattern); }
+                            default Predicate like(String pattern) { return isEmpty(pattern) ? null : likePredicate(this, escaped(pattern)); }
+                            default Predicate likePartial(String pattern) { return isEmpty(pattern) ? null : likePredicate(this, escapedPartial(pattern)); }
+                            default Predicate notLike(Expression<String> pattern) { return Parameters.record("notLikeUnescaped", builder().notLike(get(), pattern), get(), pattern); }
+                            default Predicate notLike(String pattern) { return isEmpty(pattern) ? null : notLikePredicate(this, escaped(pattern)); }
+                            default Predicate notLikePartial(String pattern) { return isEmpty(pattern) ? null : notLikePredicate(this, escapedPartial(pattern)); }
+
+                            private static Predicate likePredicate(StringExpression<?> x, String pattern) {
+                                return Parameters.isBinding()
+                                    ? x.like(Parameters.bind(x.builder(), pattern))
+                                    : x.builder().like(x.get(), pattern, '\\\\');
                             }
-                            private static String escapedPartial(String str) {
-                                return "%%" + ESCAPE_PATTERN.matcher(str).replaceAll("\\\\\\\\$1") + "%%";
+                            private static Predicate notLikePredicate(StringExpression<?> x, String pattern) {
+                                if (!Parameters.isBinding()) {
+                                    return x.builder().notLike(x.get(), pattern, '\\\\');
+                                }
+                                Expression<String> y = Parameters.bind(x.builder(), pattern);
+                                return Parameters.record("notLike", x.builder().notLike(x.get(), y, '\\\\'), x.get(), y);
+                            }
+
+                            private static String escaped(String str) { return escaped(str, false); }
+                            private static String escapedPartial(String str) { return escaped(str, true); }
+                            private static String escaped(String str, boolean partial) {
+                                StringBuilder sb = new StringBuilder(str.length() + 8);
+                                if (partial) sb.append('%%');
+                                for (int i = 0; i < str.length(); i++) {
+                                    char c = str.charAt(i);
+                                    if (c == '%%' || c == '_' || c == '\\\\') sb.append('\\\\');
+                                    sb.append(c);
+                                }
+                                return sb.append('%%').toString();
                             }
 
                             default Expression<String> concat(String y) { return builder().concat(get(), y); }
@@ -489,26 +676,26 @@ public class ApiClassWriter {
                         public interface BooleanExpression<T extends Expression<Boolean>>
                                 extends Supplier<T>, AnyExpression<Boolean, T>, ComparableExpression<Boolean, T>, CommonType {
                             T get();
-                            default Predicate isTrue() { return builder().isTrue(get()); }
-                            default Predicate isFalse() { return builder().isFalse(get()); }
+                            default Predicate isTrue() { return Parameters.record("isTrue", builder().isTrue(get()), get()); }
+                            default Predicate isFalse() { return Parameters.record("isFalse", builder().isFalse(get()), get()); }
                         }
 
                         public interface NumberExpression<E extends Number, T extends Expression<E>>
                                 extends Supplier<T>, AnyExpression<E, T>, CommonType {
                             T get();
-                            default Predicate gt(Expression<? extends Number> y) { return builder().gt(get(), y); }
-                            default Predicate gt(Number y) { return Objects.isNull(y) ? null : builder().gt(get(), y); }
-                            default Predicate ge(Expression<? extends Number> y) { return builder().ge(get(), y); }
-                            default Predicate ge(Number y) { return Objects.isNull(y) ? null : builder().ge(get(), y); }
-                            default Predicate lt(Expression<? extends Number> y) { return builder().lt(get(), y); }
-                            default Predicate lt(Number y) { return Objects.isNull(y) ? null : builder().lt(get(), y); }
-                            default Predicate le(Expression<? extends Number> y) { return builder().le(get(), y); }
-                            default Predicate le(Number y) { return Objects.isNull(y) ? null : builder().le(get(), y); }
-
-                            default NumberExp<E> sum() { return new NumberExp<>(() -> builder().sum(get()), builder()); }
-                            default NumberExp<E> max() { return new NumberExp<>(() -> builder().max(get()), builder()); }
-                            default NumberExp<E> min() { return new NumberExp<>(() -> builder().min(get()), builder()); }
-                            default NumberExp<Double> avg() { return new NumberExp<>(() -> builder().avg(get()), builder()); }
+                            default Predicate gt(Expression<? extends Number> y) { return Parameters.record("gt", builder().gt(get(), y), get(), y); }
+                            default Predicate gt(Number y) { return Objects.isNull(y) ? null : Parameters.isBinding() ? gt(Parameters.bind(builder(), y)) : builder().gt(get(), y); }
+                            default Predicate ge(Expression<? extends Number> y) { return Parameters.record("ge", builder().ge(get(), y), get(), y); }
+                            default Predicate ge(Number y) { return Objects.isNull(y) ? null : Parameters.isBinding() ? ge(Parameters.bind(builder(), y)) : builder().ge(get(), y); }
+                            default Predicate lt(Expression<? extends Number> y) { return Parameters.record("lt", builder().lt(get(), y), get(), y); }
+                            default Predicate lt(Number y) { return Objects.isNull(y) ? null : Parameters.isBinding() ? lt(Parameters.bind(builder(), y)) : builder().lt(get(), y); }
+                            default Predicate le(Expression<? extends Number> y) { return Parameters.record("le", builder().le(get(), y), get(), y); }
+                            default Predicate le(Number y) { return Objects.isNull(y) ? null : Parameters.isBinding() ? le(Parameters.bind(builder(), y)) : builder().le(get(), y); }
+
+                            default NumberExp<E> sum() { return new NumberExp<>(builder().sum(get()), builder()); }
+                            default NumberExp<E> max() { return new NumberExp<>(builder().max(get()), builder()); }
+                            default NumberExp<E> min() { return new NumberExp<>(builder().min(get()), builder()); }
+                            default NumberExp<Double> avg() { return new NumberExp<>(builder().avg(get()), builder()); }
 
                             default Expression<Long> toLong() { return builder().toLong(get()); }
                             default Expression<Integer> toInteger() { return builder().toInteger(get()); }
@@ -521,18 +708,18 @@ public class ApiClassWriter {
                         public interface AnyCollectionExpression<C extends Collection<?>, T extends Expression<C>>
                                 extends Supplier<T>, AnyExpression<C, T>, CommonType {
                             T get();
-                            default Predicate isEmpty() { return builder().isEmpty(get()); }
-                            default Predicate isNotEmpty() { return builder().isNotEmpty(get()); }
+                            default Predicate isEmpty() { return Parameters.record("isEmpty", builder().isEmpty(get()), get()); }
+                            default Predicate isNotEmpty() { return Parameters.record("isNotEmpty", builder().isNotEmpty(get()), get()); }
                             default Expression<Integer> size(Expression<C> collection) { return builder().size(get()); }
                         }
 
                         public interface CollectionExpression<E, C extends Collection<E>, T extends Expression<C>>
                                 extends Supplier<T>, AnyExpression<C, T>, AnyCollectionExpression<C, T>, CommonType {
                             T get();
-                            default Predicate isMember(Expression<E> elem) { return builder().isMember(elem, get()); }
-                            default Predicate isMember(E elem) { return Objects.isNull(elem) ? null : builder().isMember(elem, get()); }
-                            default Predicate isNotMember(Expression<E> elem) { return builder().isMember(elem, get()); }
-                            default Predicate isNotMember(E elem) { return Objects.isNull(elem) ? null : builder().isMember(elem, get()); }
+                            default Predicate isMember(Expression<E> elem) { return Parameters.record("isMember", builder().isMember(elem, get()), elem, get()); }
+                            default Predicate isMember(E elem) { return Objects.isNull(elem) ? null : Parameters.isBinding() ? isMember(Parameters.bind(builder(), elem)) : builder().isMember(elem, get()); }
+                            default Predicate isNotMember(Expression<E> elem) { return Parameters.record("isNotMember", builder().isNotMember(elem, get()), elem, get()); }
+                            default Predicate isNotMember(E elem) { return Objects.isNull(elem) ? null : Parameters.isBinding() ? isNotMember(Parameters.bind(builder(), elem)) : builder().isNotMember(elem, get()); }
                         }
 
                         public interface AnyMapExpression<M extends Map<?, ?>, T extends Expression<M>>
@@ -552,6 +739,141 @@ public class ApiClassWriter {
                             Path<V> key();
                         }
 
+                        // ------------------------------------------------------------------------
+
+                        // reuse the join of the attribute and join type already made from the source.
+                        // the joins are held by the source itself, so that they are shared by the specifications of a query
+                        public static <F extends From<?, ?>, J extends Join<?, ?>> J join(
+                                F from, Attribute<?, ?> attribute, JoinType joinType, Function<F, J> newJoin) {
+                            for (Join<?, ?> join : from.getJoins()) {
+                                if (join.getJoinType() == joinType && join.getAttribute().getName().equals(attribute.getName())) {
+                                    return (J) join;
+                                }
+                            }
+                            return newJoin.apply(from);
+                        }
+
+                        // reuse the fetch of the attribute and join type already made from the parent,
+                        // no fetch is made from the parent that is not fetchable
+                        public static <F extends FetchParent<?, ?>, J extends Fetch<?, ?>> J fetch(
+                                F parent, Attribute<?, ?> attribute, JoinType joinType, Function<F, J> newFetch) {
+                            if (parent == null) {
+                                return null;
+                            }
+                            for (Fetch<?, ?> fetch : parent.getFetches()) {
+                                if (fetch.getJoinType() == joinType && fetch.getAttribute().getName().equals(attribute.getName())) {
+                                    return (J) fetch;
+                                }
+                            }
+                            return newFetch.apply(parent);
+                        }
+
+                        // the source of fetches if the query selects its root, otherwise null,
+                        // so that the count queries and the subqueries make no fetches.
+                        // a query not selecting yet, as the count query of Spring Data applying the specification first,
+                        // is decided by its result type
+                        public static <F extends From<?, ?>> F fetchable(AbstractQuery<?> query, F from) {
+                            if (!(query instanceof CriteriaQuery<?> criteriaQuery)) {
+                                return null;
+                            }
+                            From<?, ?> root = from;
+                            while (root instanceof Join<?, ?> join) {
+                                root = join.getParent();
+                            }
+                            Selection<?> selection = query.getSelection();
+                            if (selection == null) {
+                                Class<?> resultType = criteriaQuery.getResultType();
+                                if (resultType == Long.class || resultType == long.class) {
+                                    return null;
+                                }
+                                return (resultType.isAssignableFrom(root.getJavaType())
+                                    || resultType == Tuple.class || resultType == Object[].class) ? from : null;
+                            }
+                            if (selection == root) {
+                                return from;
+                            }
+                            if (selection.isCompoundSelection()) {
+                                for (Selection<?> item : selection.getCompoundSelectionItems()) {
+                                    if (item == root) {
+                                        return from;
+                                    }
+                                }
+                            }
+                            return null;
+                        }
+
+                        // whether the joins made from the source include a to-many join, that multiplies the rows of the source
+                        public static boolean hasPluralJoin(From<?, ?> from) {
+                            for (Join<?, ?> join : from.getJoins()) {
+                                if (join.getAttribute().isCollection() || hasPluralJoin(join)) {
+                                    return true;
+                                }
+                            }
+                            return false;
+                        }
+
+                        // the subquery of the root made by <Entity>Model.subquery, selecting the expression with the restrictions
+                        public static <U> Subquery<U> subquery(RootAware<?> root, AnyExpression<U, ?> selection, Predicate... restrictions) {
+                            Subquery<U> subquery = (Subquery<U>) subqueryOf(root);
+                            subquery.select(selection.get());
+                            return where(subquery, restrictions);
+                        }
+
+                        // the semi-join of the root made by <Entity>Model.subquery or correlate,
+                        // in place of a join with distinct, that widens the rows of the query
+                        public static Predicate exists(RootAware<?> root, Predicate... restrictions) {
+                            return root.builder().exists(selectRoot(root, restrictions));
+                        }
+
+                        public static Predicate notExists(RootAware<?> root, Predicate... restrictions) {
+                            return root.builder().not(root.builder().exists(selectRoot(root, restrictions)));
+                        }
+
+                        // the quantifier of the elements of a plural attribute, joined in a subquery correlated with the owner
+                        public enum Quantifier { ANY, NONE, ALL }
+
+                        public static Predicate quantify(Quantifier quantifier, Subquery<Integer> subquery, Predicate predicate, CriteriaBuilder builder) {
+                            Predicate restriction = (predicate == null) ? builder.conjunction() : predicate;
+                            subquery.select(builder.literal(1));
+                            return switch (quantifier) {
+                                case ANY  -> builder.exists(subquery.where(restriction));
+                                case NONE -> builder.not(builder.exists(subquery.where(restriction)));
+                                case ALL  -> builder.not(builder.exists(subquery.where(builder.not(restriction))));
+                            };
+                        }
+
+                        private static Subquery<?> selectRoot(RootAware<?> root, Predicate... restrictions) {
+                            Subquery<Object> subquery = (Subquery<Object>) subqueryOf(root);
+                            if (subquery.getSelection() == null) {
+                                subquery.select((Expression<Object>) (Expression<?>) root.get());
+                            }
+                            return where(subquery, restrictions);
+                        }
+
+                        private static Subquery<?> subqueryOf(RootAware<?> root) {
+                            if (root.query() instanceof Subquery<?> subquery) {
+                                return subquery;
+                            }
+                            throw new IllegalArgumentException("The root is not of a subquery : " + root.type().getName());
+                        }
+
+                        private static <U> Subquery<U> where(Subquery<U> subquery, Predicate... restrictions) {
+                            Predicate[] predicates = restrictions(restrictions);
+                            return (predicates.length == 0) ? subquery : subquery.where(predicates);
+                        }
+
+                        // the restrictions without the null, to be given to where of a query or a statement
+                        public static Predicate[] restrictions(Predicate... restrictions) {
+                            int n = 0;
+                            Predicate[] predicates = new Predicate[restrictions.length];
+                            for (Predicate predicate : restrictions) {
+                                if (predicate != null) {
+                                    predicates[n++] = predicate;
+                                }
+                            }
+                            return (n == predicates.length) ? predicates : Arrays.copyOf(predicates, n);
+                        }
+
                         private static boolean isEmpty(Object obj) {
                             return Objects.isNull(obj) || (obj instanceof String str && str.isEmpty());
                         }
@@ -568,18 +890,19 @@ public class ApiClassWriter {
 
 
     /**
-     * Write a repository class file.
+     * Write a Hints class file.
+     * The names of the standard hints are of the persistence api in use.
      */
-    private void writeRepositoryClass() {
+    private void writeHintsClass() {
 
-        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + REPOSITORY))) {
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + HINTS))) {
             return;
         }
 
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + REPOSITORY);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + HINTS, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -587,16 +910,1285 @@ public class ApiClassWriter {
                 pw.println();
 
                 imports.add("javax.annotation.processing.Generated");
-                imports.add("java.io.Serializable");
+                imports.add("jakarta.persistence.FlushModeType");
+                imports.add("jakarta.persistence.Query");
+                imports.add("java.time.Duration");
+                imports.add("java.util.Collections");
+                imports.add("java.util.LinkedHashMap");
+                imports.add("java.util.Map");
                 pw.println(imports.generateImports(context.isJakarta()));
                 pw.println();
 
                 pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
                 pw.println("""
-                    public interface %1$s<PK extends Serializable, E, R extends %2$s<E>> {
-                        %3$s<E, R> rootSource();
+                    public class %1$s {
+
+                        private static final %1$s EMPTY = new %1$s(Map.of(), null);
+
+                        // the hints by the name, with the hints of the known providers for the same tuning
+                        private final Map<String, Object> hints;
+                        private final FlushModeType flushMode;
+
+                        private %1$s(Map<String, Object> hints, FlushModeType flushMode) {
+                            this.hints = hints;
+                            this.flushMode = flushMode;
+                        }
+
+                        public static %1$s of() {
+                            return EMPTY;
+                        }
+
+                        public %1$s fetchSize(int fetchSize) {
+                            return with("org.hibernate.fetchSize", fetchSize)
+                                .with("eclipselink.jdbc.fetch-size", String.valueOf(fetchSize));
+                        }
+
+                        public %1$s readOnly() {
+                            return with("org.hibernate.readOnly", true)
+                                .with("eclipselink.read-only", "true");
+                        }
+
+                        public %1$s timeout(Duration timeout) {
+                            return with("%2$s.persistence.query.timeout", Math.toIntExact(timeout.toMillis()));
+                        }
+
+                        public %1$s lockTimeout(Duration timeout) {
+                            return with("%2$s.persistence.lock.timeout", Math.toIntExact(timeout.toMillis()));
+                        }
+
+                        public %1$s cacheable() {
+                            return with("org.hibernate.cacheable", true)
+                                .with("eclipselink.query-results-cache", "true");
+                        }
+
+                        public %1$s cacheable(String region) {
+                            return cacheable().with("org.hibernate.cacheRegion", region);
+                        }
+
+                        public %1$s flushMode(FlushModeType flushMode) {
+                            return new %1$s(hints, flushMode);
+                        }
+
+                        public %1$s hint(String name, Object value) {
+                            return with(name, value);
+                        }
+
+                        // the hints of the other take precedence
+                        public %1$s merge(%1$s other) {
+                            if (isEmpty()) {
+                                return other;
+                            }
+                            if (other.isEmpty()) {
+                                return this;
+                            }
+                            Map<String, Object> map = new LinkedHashMap<>(hints);
+                            map.putAll(other.hints);
+                            return new %1$s(Collections.unmodifiableMap(map), other.flushMode == null ? flushMode : other.flushMode);
+                        }
+
+                        public boolean isEmpty() {
+                            return hints.isEmpty() && flushMode == null;
+                        }
+
+                        public Map<String, Object> asMap() {
+                            return hints;
+                        }
+
+                        public FlushModeType flushMode() {
+                            return flushMode;
+                        }
+
+                        public <Q extends Query> Q applyTo(Q query) {
+                            for (Map.Entry<String, Object> hint : hints.entrySet()) {
+                                query.setHint(hint.getKey(), hint.getValue());
+                            }
+                            if (flushMode != null) {
+                                query.setFlushMode(flushMode);
+                            }
+                            return query;
+                        }
+
+                        private %1$s with(String name, Object value) {
+                            Map<String, Object> map = new LinkedHashMap<>(hints);
+                            map.put(name, value);
+                            return new %1$s(Collections.unmodifiableMap(map), flushMode);
+                        }
+                    }
+                    """.formatted(HINTS, context.isJakarta() ? "jakarta" : "javax"));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", HINTS, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a Filter class file.
+     */
+    private void writeFilterClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + FILTER))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + FILTER, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.criteria.Predicate");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    @FunctionalInterface
+                    public interface %1$s<E, R extends %2$s<E>> {
+
+                        Predicate apply(R root);
+
+                        // the hints applied to the queries executing this filter
+                        default %3$s hints() {
+                            return %3$s.of();
+                        }
+
+                        default %1$s<E, R> with(%3$s hints) {
+                            return hinted(this, hints().merge(hints));
+                        }
+
+                        default %1$s<E, R> and(%1$s<E, R> other) {
+                            return hinted(root -> {
+                                Predicate x = apply(root);
+                                Predicate y = other.apply(root);
+                                return x == null ? y : y == null ? x : root.builder().and(x, y);
+                            }, hints().merge(other.hints()));
+                        }
+
+                        // a null predicate restricts nothing, so it leaves out the other side of an or.
+                        // the other side is not applied then, so that it makes no joins narrowing the rows
+                        default %1$s<E, R> or(%1$s<E, R> other) {
+                            return hinted(root -> {
+                                Predicate x = apply(root);
+                                if (x == null) {
+                                    return null;
+                                }
+                                Predicate y = other.apply(root);
+                                return y == null ? null : root.builder().or(x, y);
+                            }, hints().merge(other.hints()));
+                        }
+
+                        static <E, R extends %2$s<E>> %1$s<E, R> empty() {
+                            return root -> null;
+                        }
+
+                        private static <E, R extends %2$s<E>> %1$s<E, R> hinted(%1$s<E, R> filter, %3$s hints) {
+                            if (hints.isEmpty()) {
+                                return filter;
+                            }
+                            return new %1$s<>() {
+                                @Override public Predicate apply(R root) { return filter.apply(root); }
+                                @Override public %3$s hints() { return hints; }
+                            };
+                        }
+                    }
+                    """.formatted(FILTER, ROOT_AWARE, HINTS));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", FILTER, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a Parameters class file.
+     */
+    private void writeParametersClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + PARAMETERS))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + PARAMETERS, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.Parameter");
+                imports.add("jakarta.persistence.Query");
+                imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.Expression");
+                imports.add("jakarta.persistence.criteria.ParameterExpression");
+                imports.add("jakarta.persistence.criteria.Predicate");
+                imports.add("java.util.ArrayList");
+                imports.add("java.util.Arrays");
+                imports.add("java.util.IdentityHashMap");
+                imports.add("java.util.List");
+                imports.add("java.util.Map");
+                imports.add("java.util.function.Supplier");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    @SuppressWarnings("unchecked")
+                    public class %1$s {
+
+                        // the parameters collecting the values of the query being built on the thread
+                        private static final ThreadLocal<%1$s> current = new ThreadLocal<>();
+
+                        private final List<ParameterExpression<?>> expressions = new ArrayList<>();
+                        // the values and the operations are looked up by the identity of the expressions and the predicates
+                        private final Map<Expression<?>, Object> values = new IdentityHashMap<>();
+                        private final Map<Expression<?>, Operation> operations = new IdentityHashMap<>();
+
+                        private %1$s() {
+                        }
+
+                        public static %1$s of() {
+                            return new %1$s();
+                        }
+
+                        // build a query, the predicates of values bind their values to this parameters
+                        public <T> T collect(Supplier<T> build) {
+                            %1$s outer = current.get();
+                            current.set(this);
+                            try {
+                                return build.get();
+                            } finally {
+                                if (outer == null) {
+                                    current.remove();
+                                } else {
+                                    current.set(outer);
+                                }
+                            }
+                        }
+
+                        public static boolean isBinding() {
+                            return current.get() != null;
+                        }
+
+                        // bind the value as a parameter of the query being built
+                        public static <V> ParameterExpression<V> bind(CriteriaBuilder builder, V value) {
+                            %1$s parameters = current.get();
+                            Class<V> type = (Class<V>) (value instanceof Enum<?> e ? e.getDeclaringClass() : value.getClass());
+                            ParameterExpression<V> expression = builder.parameter(type);
+                            parameters.expressions.add(expression);
+                            parameters.values.put(expression, value);
+                            return expression;
+                        }
+
+                        // record the operation of the predicate on its operands, while a query is built
+                        public static Predicate record(String operation, Predicate predicate, Expression<?>... operands) {
+                            %1$s parameters = current.get();
+                            if (parameters != null && predicate != null) {
+                                parameters.operations.put(predicate, new Operation(operation, Arrays.asList(operands)));
+                            }
+                            return predicate;
+                        }
+
+                        // the recorded operation of the predicate, or null if the predicate is not recorded
+                        public Operation operation(Expression<Boolean> predicate) {
+                            return operations.get(predicate);
+                        }
+
+                        public boolean isBound(Expression<?> expression) {
+                            return values.containsKey(expression);
+                        }
+
+                        public Object value(Expression<?> expression) {
+                            return values.get(expression);
+                        }
+
+                        public <Q extends Query> Q bindTo(Q query) {
+                            for (ParameterExpression<?> expression : expressions) {
+                                query.setParameter((Parameter<Object>) expression, values.get(expression));
+                            }
+                            return query;
+                        }
+
+                        public record Operation(String name, List<Expression<?>> operands) { }
+                    }
+                    """.formatted(PARAMETERS));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", PARAMETERS, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a QueryTemplate class file.
+     */
+    private void writeQueryTemplateClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + QUERY_TEMPLATE))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + QUERY_TEMPLATE, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.EntityManager");
+                imports.add("jakarta.persistence.EntityManagerFactory");
+                imports.add("jakarta.persistence.Parameter");
+                imports.add("jakarta.persistence.TypedQuery");
+                imports.add("jakarta.persistence.criteria.CriteriaQuery");
+                imports.add("jakarta.persistence.criteria.Expression");
+                imports.add("jakarta.persistence.criteria.Fetch");
+                imports.add("jakarta.persistence.criteria.FetchParent");
+                imports.add("jakarta.persistence.criteria.From");
+                imports.add("jakarta.persistence.criteria.Join");
+                imports.add("jakarta.persistence.criteria.Order");
+                imports.add("jakarta.persistence.criteria.ParameterExpression");
+                imports.add("jakarta.persistence.criteria.Path");
+                imports.add("jakarta.persistence.criteria.Predicate");
+                imports.add("jakarta.persistence.criteria.Root");
+                imports.add("java.util.ArrayList");
+                imports.add("java.util.Collection");
+                imports.add("java.util.List");
+                imports.add("java.util.Map");
+                imports.add("java.util.concurrent.ConcurrentHashMap");
+                imports.add("java.util.function.Supplier");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    @SuppressWarnings("unchecked")
+                    public class %1$s<E> {
+
+                        // the queries built by the filters, keyed by the entity manager factory and the structure of the query,
+                        // that is the roots with their joins and fetches, the selection, the ordering, and the restriction
+                        // with the operations and the operand paths of its predicates, the values of which are parameters,
+                        // and the models of the attribute paths, which are the same objects in the metamodel of the factory.
+                        // a template query is shared by the threads and the entity managers of the factory,
+                        // and is only passed to EntityManager#createQuery, that is to read it without modifying it
+                        private final Map<Key, Template<E>> templates = new ConcurrentHashMap<>();
+
+                        private %1$s() {
+                        }
+
+                        public static <E> %1$s<E> of() {
+                            return new %1$s<>();
+                        }
+
+                        // build the query with the values as parameters, and execute the template of the same structure
+                        // in place of it, so that the provider sees the same query for any values.
+                        // a query the structure of which is not known is executed as built, without a template
+                        public TypedQuery<E> createQuery(EntityManager em, Supplier<CriteriaQuery<E>> build) {
+                            %2$s parameters = %2$s.of();
+                            CriteriaQuery<E> query = parameters.collect(build);
+                            Structure structure = new Structure(query, parameters);
+                            String key = structure.build();
+                            if (key == null) {
+                                return parameters.bindTo(em.createQuery(query));
+                            }
+                            Template<E> template = templates.computeIfAbsent(
+                                new Key(em.getEntityManagerFactory(), key, List.copyOf(structure.models)),
+                                k -> new Template<>(query, structure.parameters));
+                            TypedQuery<E> typed = em.createQuery(template.query());
+                            for (int i = 0; i < template.parameters().size(); i++) {
+                                typed.setParameter((Parameter<Object>) template.parameters().get(i),
+                                    parameters.value(structure.parameters.get(i)));
+                            }
+                            return typed;
+                        }
+
+                        // the structure of a query, with its parameters in the order of the structure.
+                        // the structure is not known if the query has a predicate not recorded by the criteria,
+                        // an operand other than a path or a bound parameter, a join with a condition, or a grouping
+                        private static class Structure {
+
+                            private final CriteriaQuery<?> query;
+                            private final %2$s values;
+                            private final List<ParameterExpression<?>> parameters = new ArrayList<>();
+                            private final List<Object> models = new ArrayList<>();
+                            private final StringBuilder sb = new StringBuilder();
+
+                            private Structure(CriteriaQuery<?> query, %2$s values) {
+                                this.query = query;
+                                this.values = values;
+                            }
+
+                            // the structure, or null if it is not known
+                            private String build() {
+                                if (!query.getGroupList().isEmpty() || query.getGroupRestriction() != null) {
+                                    return null;
+                                }
+                                sb.append(query.getResultType().getName()).append(query.isDistinct() ? " distinct" : "");
+                                for (Root<?> root : query.getRoots()) {
+                                    sb.append(" from ").append(root.getJavaType().getName());
+                                    if (!joins(root)) {
+                                        return null;
+                                    }
+                                }
+                                sb.append(" select ");
+                                if (query.getSelection() != null
+                                        && !(query.getSelection() instanceof Expression<?> selection && operand(selection))) {
+                                    return null;
+                                }
+                                sb.append(" where ");
+                                if (query.getRestriction() != null && !predicate(query.getRestriction())) {
+                                    return null;
+                                }
+                                sb.append(" order");
+                                for (Order order : query.getOrderList()) {
+                                    sb.append(' ');
+                                    if (!operand(order.getExpression())) {
+                                        return null;
+                                    }
+                                    sb.append(order.isAscending() ? " asc" : " desc");
+                                }
+                                return sb.toString();
+                            }
+
+                            private boolean joins(From<?, ?> from) {
+                                for (Join<?, ?> join : from.getJoins()) {
+                                    if (join.getOn() != null) {
+                                        return false;
+                                    }
+                                    sb.append(" join(").append(join.getAttribute().getName()).append(' ').append(join.getJoinType())
+                                        .append(' ').append(join.getJavaType().getName());
+                                    if (!joins(join)) {
+                                        return false;
+                                    }
+                                    sb.append(')');
+                                }
+                                return fetches(from);
+                            }
+
+                            private boolean fetches(FetchParent<?, ?> parent) {
+                                for (Fetch<?, ?> fetch : parent.getFetches()) {
+                                    if (fetch instanceof From<?, ?> from && !from.getJoins().isEmpty()) {
+                                        return false;
+                                    }
+                                    sb.append(" fetch(").append(fetch.getAttribute().getName()).append(' ').append(fetch.getJoinType());
+                                    if (!fetches(fetch)) {
+                                        return false;
+                                    }
+                                    sb.append(')');
+                                }
+                                return true;
+                            }
+
+                            private boolean predicate(Expression<Boolean> x) {
+                                if (!(x instanceof Predicate predicate)) {
+                                    return false;
+                                }
+                                if (predicate.isNegated()) {
+                                    sb.append('!');
+                                }
+                                %2$s.Operation operation = values.operation(predicate);
+                                if (operation != null) {
+                                    sb.append(operation.name()).append('(');
+                                    for (Expression<?> operand : operation.operands()) {
+                                        if (!operand(operand)) {
+                                            return false;
+                                        }
+                                        sb.append(',');
+                                    }
+                                    sb.append(')');
+                                    return true;
+                                }
+                                List<Expression<Boolean>> expressions = predicate.getExpressions();
+                                if (expressions.isEmpty()) {
+                                    return false;
+                                }
+                                sb.append(predicate.getClass().getName()).append(' ').append(predicate.getOperator()).append('(');
+                                for (Expression<Boolean> expression : expressions) {
+                                    if (!predicate(expression)) {
+                                        return false;
+                                    }
+                                    sb.append(',');
+                                }
+                                sb.append(')');
+                                return true;
+                            }
+
+                            private boolean operand(Expression<?> x) {
+                                if (x instanceof ParameterExpression<?> parameter && values.isBound(parameter)) {
+                                    parameters.add(parameter);
+                                    sb.append('?').append(parameter.getJavaType().getName());
+                                    return true;
+                                }
+                                return x instanceof Path<?> path && path(path);
+                            }
+
+                            // the root by its index in the query, the join by its index in the parent,
+                            // and the attribute path by its model, that is not the attribute itself on some providers
+                            private boolean path(Path<?> x) {
+                                if (x instanceof Root<?> root) {
+                                    int index = indexOf(query.getRoots(), root);
+                                    sb.append("root").append(index);
+                                    return index >= 0;
+                                }
+                                if (x instanceof Join<?, ?> join) {
+                                    int index = indexOf(join.getParent().getJoins(), join);
+                                    int fetch = (index < 0) ? indexOf(join.getParent().getFetches(), join) : -1;
+                                    if ((index < 0 && fetch < 0) || !path(join.getParent())) {
+                                        return false;
+                                    }
+                                    sb.append(index >= 0 ? ".join" + index : ".fetch" + fetch);
+                                    return true;
+                                }
+                                if (x.getParentPath() == null || x.getModel() == null || !path(x.getParentPath())) {
+                                    return false;
+                                }
+                                sb.append(".#").append(models.size()).append(' ').append(x.getJavaType().getName());
+                                models.add(x.getModel());
+                                return true;
+                            }
+
+                            private static int indexOf(Collection<?> collection, Object element) {
+                                int index = 0;
+                                for (Object e : collection) {
+                                    if (e == element) {
+                                        return index;
+                                    }
+                                    index++;
+                                }
+                                return -1;
+                            }
+                        }
+
+                        private record Key(EntityManagerFactory factory, String structure, List<Object> models) { }
+
+                        private record Template<E>(CriteriaQuery<E> query, List<ParameterExpression<?>> parameters) { }
+                    }
+                    """.formatted(QUERY_TEMPLATE, PARAMETERS));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", QUERY_TEMPLATE, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a Keyset class file.
+     */
+    private void writeKeysetClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + KEYSET))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + KEYSET, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.Tuple");
+                imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.CriteriaQuery");
+                imports.add("jakarta.persistence.criteria.Expression");
+                imports.add("jakarta.persistence.criteria.Order");
+                imports.add("jakarta.persistence.criteria.Path");
+                imports.add("jakarta.persistence.criteria.Predicate");
+                imports.add("jakarta.persistence.criteria.Root");
+                imports.add("jakarta.persistence.criteria.Selection");
+                imports.add("jakarta.persistence.metamodel.SingularAttribute");
+                imports.add("java.util.ArrayList");
+                imports.add("java.util.List");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    public class %1$s<E, R extends %2$s<E>> {
+
+                        // the ordered keys, followed by the id that breaks the ties. the keys must not be null
+                        private final List<Key<E, R>> keys;
+                        private final boolean descendingId;
+
+                        private %1$s(List<Key<E, R>> keys, boolean descendingId) {
+                            this.keys = keys;
+                            this.descendingId = descendingId;
+                        }
+
+                        public static <E, R extends %2$s<E>> %1$s<E, R> of() {
+                            return new %1$s<>(List.of(), false);
+                        }
+
+                        public <U> %1$s<E, R> asc(Criteria.ExpressionSelector<E, R, U> key) {
+                            return with(new Key<>(key, false));
+                        }
+
+                        public <U> %1$s<E, R> desc(Criteria.ExpressionSelector<E, R, U> key) {
+                            return with(new Key<>(key, true));
+                        }
+
+                        public %1$s<E, R> descId() {
+                            return new %1$s<>(keys, true);
+                        }
+
+                        private %1$s<E, R> with(Key<E, R> key) {
+                            List<Key<E, R>> list = new ArrayList<>(keys);
+                            list.add(key);
+                            return new %1$s<>(List.copyOf(list), descendingId);
+                        }
+
+                        // select the root with the keys, filtered and seeking after the cursor, in the order of the keys
+                        public <PK> CriteriaQuery<Tuple> criteriaQuery(CriteriaBuilder builder, %3$s<E, R> source,
+                                SingularAttribute<? super E, PK> id, %4$s<E, R> filter, Cursor<PK> cursor) {
+                            CriteriaQuery<Tuple> query = builder.createTupleQuery();
+                            Root<E> root = query.from(source.rootClass());
+                            R typedRoot = source.root(root, query, builder);
+                            List<Expression<?>> expressions = expressions(typedRoot, root.get(id));
+                            Predicate predicate = filter.apply(typedRoot);
+                            Predicate seek = seekAfter(builder, expressions, cursor);
+                            if (predicate != null && seek != null) {
+                                query.where(predicate, seek);
+                            } else if (predicate != null || seek != null) {
+                                query.where(predicate == null ? seek : predicate);
+                            }
+                            List<Selection<?>> selections = new ArrayList<>(expressions.size() + 1);
+                            selections.add(root);
+                            selections.addAll(expressions);
+                            return query.multiselect(selections).orderBy(orders(builder, expressions));
+                        }
+
+                        public Predicate seekAfter(R root, Path<?> id, Cursor<?> cursor) {
+                            return seekAfter(root.builder(), expressions(root, id), cursor);
+                        }
+
+                        public List<Order> orders(R root, Path<?> id) {
+                            return orders(root.builder(), expressions(root, id));
+                        }
+
+                        // the rows selected by the criteria query, one more than the size if the next page exists
+                        public <PK> Page<E, PK> page(List<Tuple> tuples, int size) {
+                            List<E> content = new ArrayList<>(Math.min(tuples.size(), size));
+                            for (int i = 0; i < tuples.size() && i < size; i++) {
+                                content.add((E) tuples.get(i).get(0));
+                            }
+                            if (tuples.size() <= size || size <= 0) {
+                                return new Page<>(content, null);
+                            }
+                            Tuple last = tuples.get(size - 1);
+                            List<Object> values = new ArrayList<>(keys.size());
+                            for (int i = 1; i <= keys.size(); i++) {
+                                values.add(last.get(i));
+                            }
+                            return new Page<>(content, new Cursor<>((PK) last.get(keys.size() + 1), values));
+                        }
+
+                        private List<Expression<?>> expressions(R root, Path<?> id) {
+                            List<Expression<?>> expressions = new ArrayList<>(keys.size() + 1);
+                            for (Key<E, R> key : keys) {
+                                expressions.add(key.selector().apply(root).get());
+                            }
+                            expressions.add(id);
+                            return expressions;
+                        }
+
+                        private boolean isDescending(int index) {
+                            return index < keys.size() ? keys.get(index).descending() : descendingId;
+                        }
+
+                        private List<Order> orders(CriteriaBuilder builder, List<Expression<?>> expressions) {
+                            List<Order> orders = new ArrayList<>(expressions.size());
+                            for (int i = 0; i < expressions.size(); i++) {
+                                orders.add(isDescending(i) ? builder.desc(expressions.get(i)) : builder.asc(expressions.get(i)));
+                            }
+                            return orders;
+                        }
+
+                        // (k0 > v0) or (k0 = v0 and k1 > v1) or ... (k0 = v0 and ... and id > v), with < for the descending keys
+                        private Predicate seekAfter(CriteriaBuilder builder, List<Expression<?>> expressions, Cursor<?> cursor) {
+                            if (cursor == null) {
+                                return null;
+                            }
+                            if (cursor.values().size() != keys.size()) {
+                                throw new IllegalArgumentException("The cursor does not match the keys of the keyset");
+                            }
+                            Predicate[] or = new Predicate[expressions.size()];
+                            for (int i = 0; i < expressions.size(); i++) {
+                                Predicate[] and = new Predicate[i + 1];
+                                for (int j = 0; j < i; j++) {
+                                    and[j] = equal(builder, expressions.get(j), cursor.value(j));
+                                }
+                                and[i] = after(builder, (Expression<Comparable>) expressions.get(i), (Comparable) cursor.value(i), isDescending(i));
+                                or[i] = builder.and(and);
+                            }
+                            return builder.or(or);
+                        }
+
+                        private static Predicate equal(CriteriaBuilder builder, Expression<?> x, Object value) {
+                            return %5$s.isBinding()
+                                ? builder.equal(x, %5$s.bind(builder, value))
+                                : builder.equal(x, value);
+                        }
+
+                        private static Predicate after(CriteriaBuilder builder, Expression<Comparable> x, Comparable value, boolean descending) {
+                            if (%5$s.isBinding()) {
+                                Expression<Comparable> y = %5$s.bind(builder, value);
+                                return descending ? builder.lessThan(x, y) : builder.greaterThan(x, y);
+                            }
+                            return descending ? builder.lessThan(x, value) : builder.greaterThan(x, value);
+                        }
+
+                        public record Cursor<PK>(PK id, List<Object> values) {
+                            Object value(int index) {
+                                return index < values.size() ? values.get(index) : id;
+                            }
+                        }
+
+                        public record Page<E, PK>(List<E> content, Cursor<PK> next) {
+                            public boolean hasNext() {
+                                return next != null;
+                            }
+                        }
+
+                        private record Key<E, R extends %2$s<E>>(Criteria.ExpressionSelector<E, R, ?> selector, boolean descending) { }
+                    }
+                    """.formatted(KEYSET, ROOT_AWARE, ROOT_SOURCE, FILTER, PARAMETERS));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", KEYSET, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a Projection class file.
+     */
+    private void writeProjectionClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + PROJECTION))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + PROJECTION, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.EntityManager");
+                imports.add("jakarta.persistence.Tuple");
+                imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.CriteriaQuery");
+                imports.add("jakarta.persistence.criteria.Predicate");
+                imports.add("jakarta.persistence.criteria.Selection");
+                imports.add("java.util.ArrayList");
+                imports.add("java.util.List");
+                imports.add("java.util.function.Function");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    @SuppressWarnings("unchecked")
+                    public class %1$s<E, R extends %2$s<E>, T> {
+
+                        // the selected columns of the root, in place of the whole root
+                        private final %3$s<E, R> source;
+                        private final List<Criteria.Selector<E, R, ?>> selectors;
+                        private final Function<Tuple, T> mapper;
+
+                        private %1$s(%3$s<E, R> source, List<Criteria.Selector<E, R, ?>> selectors, Function<Tuple, T> mapper) {
+                            this.source = source;
+                            this.selectors = selectors;
+                            this.mapper = mapper;
+                        }
+
+                        public static <E, R extends %2$s<E>, T1> %1$s<E, R, Row1<T1>> of(%3$s<E, R> source,
+                                Criteria.Selector<E, R, T1> s1) {
+                            return new %1$s<>(source, List.of(s1), tuple -> new Row1<>((T1) tuple.get(0)));
+                        }
+
+                        public static <E, R extends %2$s<E>, T1, T2> %1$s<E, R, Row2<T1, T2>> of(%3$s<E, R> source,
+                                Criteria.Selector<E, R, T1> s1, Criteria.Selector<E, R, T2> s2) {
+                            return new %1$s<>(source, List.of(s1, s2), tuple -> new Row2<>((T1) tuple.get(0), (T2) tuple.get(1)));
+                        }
+
+                        public static <E, R extends %2$s<E>, T1, T2, T3> %1$s<E, R, Row3<T1, T2, T3>> of(%3$s<E, R> source,
+                                Criteria.Selector<E, R, T1> s1, Criteria.Selector<E, R, T2> s2, Criteria.Selector<E, R, T3> s3) {
+                            return new %1$s<>(source, List.of(s1, s2, s3), tuple -> new Row3<>((T1) tuple.get(0), (T2) tuple.get(1), (T3) tuple.get(2)));
+                        }
+
+                        public static <E, R extends %2$s<E>, T1, T2, T3, T4> %1$s<E, R, Row4<T1, T2, T3, T4>> of(%3$s<E, R> source,
+                                Criteria.Selector<E, R, T1> s1, Criteria.Selector<E, R, T2> s2, Criteria.Selector<E, R, T3> s3, Criteria.Selector<E, R, T4> s4) {
+                            return new %1$s<>(source, List.of(s1, s2, s3, s4), tuple -> new Row4<>((T1) tuple.get(0), (T2) tuple.get(1), (T3) tuple.get(2), (T4) tuple.get(3)));
+                        }
+
+                        public static <E, R extends %2$s<E>, T1, T2, T3, T4, T5> %1$s<E, R, Row5<T1, T2, T3, T4, T5>> of(%3$s<E, R> source,
+                                Criteria.Selector<E, R, T1> s1, Criteria.Selector<E, R, T2> s2, Criteria.Selector<E, R, T3> s3, Criteria.Selector<E, R, T4> s4, Criteria.Selector<E, R, T5> s5) {
+                            return new %1$s<>(source, List.of(s1, s2, s3, s4, s5), tuple -> new Row5<>((T1) tuple.get(0), (T2) tuple.get(1), (T3) tuple.get(2), (T4) tuple.get(3), (T5) tuple.get(4)));
+                        }
+
+                        public static <E, R extends %2$s<E>, T1, T2, T3, T4, T5, T6> %1$s<E, R, Row6<T1, T2, T3, T4, T5, T6>> of(%3$s<E, R> source,
+                                Criteria.Selector<E, R, T1> s1, Criteria.Selector<E, R, T2> s2, Criteria.Selector<E, R, T3> s3, Criteria.Selector<E, R, T4> s4, Criteria.Selector<E, R, T5> s5, Criteria.Selector<E, R, T6> s6) {
+                            return new %1$s<>(source, List.of(s1, s2, s3, s4, s5, s6), tuple -> new Row6<>((T1) tuple.get(0), (T2) tuple.get(1), (T3) tuple.get(2), (T4) tuple.get(3), (T5) tuple.get(4), (T6) tuple.get(5)));
+                        }
+
+                        public CriteriaQuery<Tuple> criteriaQuery(CriteriaBuilder builder, %4$s<E, R> filter) {
+                            CriteriaQuery<Tuple> query = builder.createTupleQuery();
+                            R root = source.root(query.from(source.rootClass()), query, builder);
+                            query.multiselect(selections(root));
+                            return where(query, root, filter);
+                        }
+
+                        // the constructor expression of the type over the selected columns
+                        public <X> CriteriaQuery<X> criteriaQuery(CriteriaBuilder builder, %4$s<E, R> filter, Class<X> type) {
+                            CriteriaQuery<X> query = builder.createQuery(type);
+                            R root = source.root(query.from(source.rootClass()), query, builder);
+                            query.select(builder.construct(type, selections(root).toArray(Selection<?>[]::new)));
+                            return where(query, root, filter);
+                        }
+
+                        public T map(Tuple tuple) {
+                            return mapper.apply(tuple);
+                        }
+
+                        public List<T> findAll(EntityManager em, %4$s<E, R> filter) {
+                            %5$s parameters = %5$s.of();
+                            List<Tuple> tuples = filter.hints().applyTo(parameters.bindTo(em.createQuery(
+                                parameters.collect(() -> criteriaQuery(em.getCriteriaBuilder(), filter))))).getResultList();
+                            List<T> rows = new ArrayList<>(tuples.size());
+                            for (Tuple tuple : tuples) {
+                                rows.add(mapper.apply(tuple));
+                            }
+                            return rows;
+                        }
+
+                        public <X> List<X> findAll(EntityManager em, %4$s<E, R> filter, Class<X> type) {
+                            %5$s parameters = %5$s.of();
+                            return filter.hints().applyTo(parameters.bindTo(em.createQuery(
+                                parameters.collect(() -> criteriaQuery(em.getCriteriaBuilder(), filter, type))))).getResultList();
+                        }
+
+                        private List<Selection<?>> selections(R root) {
+                            List<Selection<?>> selections = new ArrayList<>(selectors.size());
+                            for (Criteria.Selector<E, R, ?> selector : selectors) {
+                                selections.add(selector.apply(root).get());
+                            }
+                            return selections;
+                        }
+
+                        private <X> CriteriaQuery<X> where(CriteriaQuery<X> query, R root, %4$s<E, R> filter) {
+                            Predicate predicate = filter.apply(root);
+                            if (predicate != null) {
+                                query.where(predicate);
+                            }
+                            return query;
+                        }
+
+                        public record Row1<T1>(T1 first) { }
+                        public record Row2<T1, T2>(T1 first, T2 second) { }
+                        public record Row3<T1, T2, T3>(T1 first, T2 second, T3 third) { }
+                        public record Row4<T1, T2, T3, T4>(T1 first, T2 second, T3 third, T4 fourth) { }
+                        public record Row5<T1, T2, T3, T4, T5>(T1 first, T2 second, T3 third, T4 fourth, T5 fifth) { }
+                        public record Row6<T1, T2, T3, T4, T5, T6>(T1 first, T2 second, T3 third, T4 fourth, T5 fifth, T6 sixth) { }
+                    }
+                    """.formatted(PROJECTION, ROOT_AWARE, ROOT_SOURCE, FILTER, PARAMETERS));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", PROJECTION, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a nodes class file.
+     */
+    private void writeNodesClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + NODES))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + NODES, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.criteria.AbstractQuery");
+                imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.Fetch");
+                imports.add("jakarta.persistence.criteria.FetchParent");
+                imports.add("jakarta.persistence.criteria.From");
+                imports.add("jakarta.persistence.criteria.Join");
+                imports.add("jakarta.persistence.criteria.JoinType");
+                imports.add("jakarta.persistence.criteria.Path");
+                imports.add("jakarta.persistence.criteria.Root");
+                imports.add("jakarta.persistence.metamodel.Attribute");
+                imports.add("jakarta.persistence.metamodel.CollectionAttribute");
+                imports.add("jakarta.persistence.metamodel.ListAttribute");
+                imports.add("jakarta.persistence.metamodel.SetAttribute");
+                imports.add("jakarta.persistence.metamodel.SingularAttribute");
+                imports.add("java.util.function.Supplier");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    @SuppressWarnings("unchecked")
+                    public class %1$s {
+
+                        // the plumbing of the Root_, Join_ and Path_ of the models generated in the compact mode,
+                        // shared by all the entities, so that the classes of each entity hold only the typed attribute methods.
+                        // the joins and the paths of an attribute hold their parent and the attribute instead of a lambda
+
+                        public abstract static class RootNode<E> implements %2$s<E> {
+                            private final Root<E> root;
+                            private final AbstractQuery<?> query;
+                            private final CriteriaBuilder builder;
+                            protected RootNode(Root<E> root, AbstractQuery<?> query, CriteriaBuilder builder) {
+                                this.root = root;
+                                this.query = query;
+                                this.builder = builder;
+                            }
+                            @Override public Root<E> get() { return root; }
+                            @Override public CriteriaBuilder builder() { return builder; }
+                            @Override public AbstractQuery<?> query() { return query; }
+                        }
+
+                        public abstract static class JoinNode<E> implements Supplier<Join<?, E>>, Criteria.AnyExpression<E, Join<?, E>> {
+                            private final Supplier<Join<?, E>> join;
+                            private final Supplier<? extends From<?, ?>> parent;
+                            private final Attribute<?, ?> attribute;
+                            private final JoinType joinType;
+                            private final boolean reuse;
+                            private final AbstractQuery<?> query;
+                            private final CriteriaBuilder builder;
+                            private Join<?, E> resolved;
+                            protected JoinNode(Supplier<Join<?, E>> join, AbstractQuery<?> query, CriteriaBuilder builder) {
+                                this(join, null, null, null, false, query, builder);
+                            }
+                            // reuse the join of the attribute and join type already made from the parent, if reuse
+                            protected JoinNode(Supplier<? extends From<?, ?>> parent, Attribute<?, ?> attribute, JoinType joinType,
+                                    boolean reuse, AbstractQuery<?> query, CriteriaBuilder builder) {
+                                this(null, parent, attribute, joinType, reuse, query, builder);
+                            }
+                            private JoinNode(Supplier<Join<?, E>> join, Supplier<? extends From<?, ?>> parent, Attribute<?, ?> attribute,
+                                    JoinType joinType, boolean reuse, AbstractQuery<?> query, CriteriaBuilder builder) {
+                                this.join = join;
+                                this.parent = parent;
+                                this.attribute = attribute;
+                                this.joinType = joinType;
+                                this.reuse = reuse;
+                                this.query = query;
+                                this.builder = builder;
+                            }
+                            @Override public Join<?, E> get() { return resolved == null ? (resolved = resolve()) : resolved; }
+                            @Override public CriteriaBuilder builder() { return builder; }
+                            public AbstractQuery<?> query() { return query; }
+                            private Join<?, E> resolve() {
+                                if (join != null) {
+                                    return join.get();
+                                }
+                                From<?, ?> from = parent.get();
+                                return reuse
+                                    ? Criteria.join(from, attribute, joinType, f -> join(f, attribute, joinType))
+                                    : join(from, attribute, joinType);
+                            }
+                            private static <E> Join<?, E> join(From<?, ?> from, Attribute<?, ?> attribute, JoinType joinType) {
+                                From<Object, Object> f = (From<Object, Object>) from;
+                                if (attribute instanceof SingularAttribute<?, ?> a) {
+                                    return (Join<?, E>) (Join<?, ?>) f.join((SingularAttribute<Object, Object>) a, joinType);
+                                } else if (attribute instanceof ListAttribute<?, ?> a) {
+                                    return (Join<?, E>) (Join<?, ?>) f.join((ListAttribute<Object, Object>) a, joinType);
+                                } else if (attribute instanceof SetAttribute<?, ?> a) {
+                                    return (Join<?, E>) (Join<?, ?>) f.join((SetAttribute<Object, Object>) a, joinType);
+                                } else if (attribute instanceof CollectionAttribute<?, ?> a) {
+                                    return (Join<?, E>) (Join<?, ?>) f.join((CollectionAttribute<Object, Object>) a, joinType);
+                                }
+                                return f.join(attribute.getName(), joinType);
+                            }
+                        }
+
+                        public abstract static class PathNode<E> extends Criteria.AnyPath<E> implements Supplier<Path<E>> {
+                            private final AbstractQuery<?> query;
+                            protected PathNode(Supplier<Path<E>> path, AbstractQuery<?> query, CriteriaBuilder builder) {
+                                super(path, builder);
+                                this.query = query;
+                            }
+                            protected PathNode(Supplier<? extends Path<?>> parent, SingularAttribute<?, E> attribute,
+                                    AbstractQuery<?> query, CriteriaBuilder builder) {
+                                super(parent, attribute, builder);
+                                this.query = query;
+                            }
+                            public AbstractQuery<?> query() { return query; }
+                        }
+
+                        // the fetch of the attribute and join type, reusing the fetch already made from the parent
+                        public static <E> Fetch<?, E> fetch(FetchParent<?, ?> parent, Attribute<?, ?> attribute, JoinType joinType) {
+                            return Criteria.fetch(parent, attribute, joinType, p -> p.fetch(attribute.getName(), joinType));
+                        }
+                    }
+                    """.formatted(NODES, ROOT_AWARE));
+                pw.flush();
+            }
+
+        } catch (Exception e) {
+            context.logError("Problem opening file to write {} class : {}", NODES, e.getMessage());
+        }
+
+    }
+
+
+    /**
+     * Write a repository class file.
+     */
+    private void writeRepositoryClass() {
+
+        if (Objects.nonNull(context.getElementUtils().getTypeElement(PACKAGE_NAME + "." + REPOSITORY))) {
+            return;
+        }
+
+        try {
+
+            ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + REPOSITORY, originatingElements);
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.EntityManager");
+                imports.add("jakarta.persistence.Tuple");
+                imports.add("jakarta.persistence.TypedQuery");
+                imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.CriteriaQuery");
+                imports.add("jakarta.persistence.criteria.Order");
+                imports.add("jakarta.persistence.criteria.Predicate");
+                imports.add("jakarta.persistence.criteria.Root");
+                imports.add("jakarta.persistence.criteria.Subquery");
+                imports.add("jakarta.persistence.metamodel.SingularAttribute");
+                imports.add("java.io.Serializable");
+                imports.add("java.util.ArrayList");
+                imports.add("java.util.List");
+                imports.add("java.util.function.Function");
+                imports.add("java.util.stream.Stream");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println("""
+                    public interface %1$s<PK extends Serializable, E, R extends %2$s<E>> {
+
+                        %3$s<E, R> rootSource();
+
+                        SingularAttribute<? super E, PK> idAttribute();
+
+                        default List<E> findAll(EntityManager em, %4$s<E, R> filter) {
+                            return createQuery(em, filter).getResultList();
+                        }
+
+                        default List<E> findAll(EntityManager em, %6$s<E> template, %4$s<E, R> filter) {
+                            return createQuery(em, template, filter).getResultList();
+                        }
+
+                        /**
+                         * Stream the results of the filter with the fetch size of 100, detaching the entities per 100.
+                         * The entities are not read-only, and their changes are flushed while they are managed.
+                         * An entity is detached once 100 more entities have been streamed after it,
+                         * so an entity held by the caller beyond that cannot load its lazy associations,
+                         * and its changes are no longer flushed.
+                         * The stream holds the result set, and is to be closed.
+                         */
+                        default Stream<E> stream(EntityManager em, %4$s<E, R> filter) {
+                            return stream(em, filter, 100, false, 100);
+                        }
+
+                        /**
+                         * Stream the results of the filter with the fetch size and the read-only hints of the known providers.
+                         * The changes of the read-only entities are never flushed.
+                         * With a positive detach interval, the streamed entities are detached per the interval,
+                         * so that the persistence context stays small. All the entities of a batch are detached
+                         * when the first entity of the next batch is streamed, so an entity held by the caller beyond
+                         * its batch cannot load its lazy associations, and its changes are no longer flushed.
+                         * The stream holds the result set, and is to be closed.
+                         */
+                        default Stream<E> stream(EntityManager em, %4$s<E, R> filter, int fetchSize, boolean readOnly, int detachInterval) {
+                            %8$s hints = %8$s.of();
+                            if (fetchSize > 0) {
+                                hints = hints.fetchSize(fetchSize);
+                            }
+                            if (readOnly) {
+                                hints = hints.readOnly();
+                            }
+                            Stream<E> stream = hints.applyTo(createQuery(em, filter)).getResultStream();
+                            if (detachInterval <= 0) {
+                                return stream;
+                            }
+                            List<E> streamed = new ArrayList<>(detachInterval);
+                            return stream.map(entity -> {
+                                if (streamed.size() == detachInterval) {
+                                    streamed.forEach(em::detach);
+                                    streamed.clear();
+                                }
+                                streamed.add(entity);
+                                return entity;
+                            });
+                        }
+
+                        // the values of the filter are bound as parameters, and the hints of the filter are applied
+                        default TypedQuery<E> createQuery(EntityManager em, %4$s<E, R> filter) {
+                            %5$s parameters = %5$s.of();
+                            return filter.hints().applyTo(parameters.bindTo(em.createQuery(
+                                parameters.collect(() -> criteriaQuery(em.getCriteriaBuilder(), filter)))));
+                        }
+
+                        default TypedQuery<E> createQuery(EntityManager em, %6$s<E> template, %4$s<E, R> filter) {
+                            return filter.hints().applyTo(template.createQuery(em, () -> criteriaQuery(em.getCriteriaBuilder(), filter)));
+                        }
+
+                        default %7$s.Page<E, PK> findPage(EntityManager em, %4$s<E, R> filter, %7$s<E, R> keyset, int size) {
+                            return findPage(em, filter, keyset, null, size);
+                        }
+
+                        // the page seeking after the cursor, one more row is fetched to know whether the next page exists
+                        default %7$s.Page<E, PK> findPage(EntityManager em, %4$s<E, R> filter, %7$s<E, R> keyset, %7$s.Cursor<PK> cursor, int size) {
+                            %5$s parameters = %5$s.of();
+                            CriteriaQuery<Tuple> query = parameters.collect(() ->
+                                keyset.criteriaQuery(em.getCriteriaBuilder(), rootSource(), idAttribute(), filter, cursor));
+                            return keyset.page(filter.hints().applyTo(parameters.bindTo(em.createQuery(query)))
+                                .setMaxResults(lookAhead(size)).getResultList(), size);
+                        }
+
+                        // a slice fetches one more row than the limit to know whether the next slice exists, in place of counting
+                        default Slice<E> findSlice(EntityManager em, %4$s<E, R> filter, Function<R, List<Order>> orders, int offset, int limit) {
+                            %5$s parameters = %5$s.of();
+                            List<E> list = filter.hints().applyTo(parameters.bindTo(em.createQuery(
+                                    parameters.collect(() -> criteriaQuery(em.getCriteriaBuilder(), filter, orders)))))
+                                .setFirstResult(offset)
+                                .setMaxResults(lookAhead(limit))
+                                .getResultList();
+                            return list.size() > limit
+                                ? new Slice<>(List.copyOf(list.subList(0, limit)), true)
+                                : new Slice<>(list, false);
+                        }
+
+                        // the rows to fetch for the limit, one more to know whether the next page exists.
+                        // no more row is fetched for the max value, as the limit is then no limit
+                        private static int lookAhead(int limit) {
+                            if (limit <= 0) {
+                                throw new IllegalArgumentException("The limit must be positive : " + limit);
+                            }
+                            return limit == Integer.MAX_VALUE ? limit : limit + 1;
+                        }
+
+                        default long count(EntityManager em, %4$s<E, R> filter) {
+                            CriteriaBuilder builder = em.getCriteriaBuilder();
+                            %5$s parameters = %5$s.of();
+                            CriteriaQuery<Long> query = parameters.collect(() -> countQuery(builder, filter, false));
+                            if (!Criteria.hasPluralJoin(query.getRoots().iterator().next())) {
+                                return filter.hints().applyTo(parameters.bindTo(em.createQuery(query))).getSingleResult();
+                            }
+                            %5$s semiJoinParameters = %5$s.of();
+                            CriteriaQuery<Long> semiJoinQuery = semiJoinParameters.collect(() -> countQuery(builder, filter, true));
+                            return filter.hints().applyTo(semiJoinParameters.bindTo(em.createQuery(semiJoinQuery))).getSingleResult();
+                        }
+
+                        // the count query of the filter, without the ordering, the distinct and the fetches.
+                        // with the semi join, the filter is evaluated in an EXISTS subquery correlated by the id,
+                        // so that the to-many joins of the filter do not multiply the counted rows without counting the distinct ids
+                        default CriteriaQuery<Long> countQuery(CriteriaBuilder builder, %4$s<E, R> filter, boolean semiJoin) {
+                            Class<E> rootClass = rootSource().rootClass();
+                            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+                            Root<E> root = query.from(rootClass);
+                            query.select(builder.count(root));
+                            Predicate predicate;
+                            if (semiJoin) {
+                                Subquery<Integer> subquery = query.subquery(Integer.class);
+                                Root<E> correlated = subquery.from(rootClass);
+                                Predicate correlation = builder.equal(correlated.get(idAttribute()), root.get(idAttribute()));
+                                Predicate filtered = filter.apply(rootSource().root(correlated, subquery, builder));
+                                subquery.select(builder.literal(1))
+                                    .where(filtered == null ? correlation : builder.and(correlation, filtered));
+                                predicate = builder.exists(subquery);
+                            } else {
+                                predicate = filter.apply(rootSource().root(root, query, builder));
+                            }
+                            if (predicate != null) {
+                                query.where(predicate);
+                            }
+                            return query.distinct(false).orderBy(List.of());
+                        }
+
+                        default CriteriaQuery<E> criteriaQuery(CriteriaBuilder builder, %4$s<E, R> filter) {
+                            return criteriaQuery(builder, filter, root -> List.of());
+                        }
+
+                        default CriteriaQuery<E> criteriaQuery(CriteriaBuilder builder, %4$s<E, R> filter, Function<R, List<Order>> orders) {
+                            Class<E> rootClass = rootSource().rootClass();
+                            CriteriaQuery<E> query = builder.createQuery(rootClass);
+                            Root<E> root = query.from(rootClass);
+                            R typedRoot = rootSource().root(root, query, builder);
+                            Predicate predicate = filter.apply(typedRoot);
+                            if (predicate != null) {
+                                query.where(predicate);
+                            }
+                            List<Order> orderList = orders.apply(typedRoot);
+                            if (!orderList.isEmpty()) {
+                                query.orderBy(orderList);
+                            }
+                            return query.select(root);
+                        }
+
+                        record Slice<E>(List<E> content, boolean hasNext) { }
                     }
-                    """.formatted(REPOSITORY, ROOT_AWARE, ROOT_SOURCE));
+                    """.formatted(REPOSITORY, ROOT_AWARE, ROOT_SOURCE, FILTER, PARAMETERS, QUERY_TEMPLATE, KEYSET, HINTS));
                 pw.flush();
             }
 
@@ -619,7 +2211,7 @@ public class ApiClassWriter {
         try {
 
             ImportBuilder imports = ImportBuilder.of(PACKAGE_NAME);
-            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + TYPED);
+            FileObject fo = context.getFiler().createSourceFile(imports.getSelfPackage() + "." + TYPED, originatingElements);
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
 
@@ -16,9 +16,10 @@
 package com.mammb.code.jpa.fluent.modelgen.writer;
 
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
-import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
 import com.mammb.code.jpa.fluent.modelgen.model.TypeArgument;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -27,15 +28,65 @@ import java.util.Objects;
  * @see RootModelClassGenerator
  * @see JoinModelClassGenerator
  * @see PathModelClassGenerator
+ * @see FetchModelClassGenerator
  * @author Naotsugu Kobayashi
  */
 public abstract class AttributeClassGenerator {
 
+    /** The template of MapJoin method. */
+    private static final CompiledTemplate MAP_JOIN = CompiledTemplate.of("""
+        public Predicate join$AttributeName$(BiFunction<$keyPath$, $valPath$, Predicate> fun) {
+            MapJoin<$EnclosingType$, $keyName$, $valName$> join = Criteria.join($getSource$, $EnclosingType$_.$attributeName$, JoinType.INNER, from -> from.join($EnclosingType$_.$attributeName$));
+            return fun.apply(
+                $keyPathClass$,
+                $valPathClass$
+            );
+        }
+        """);
+
+    /** The template of fetch methods of entity association. */
+    private static final CompiledTemplate FETCH = CompiledTemplate.of("""
+        public $ValueType$Model.Fetch_ fetch$AttributeName$() {
+            return new $ValueType$Model.Fetch_(Criteria.fetch($fetchParent$, $EnclosingType$_.$attributeName$, JoinType.INNER, parent -> parent.fetch($EnclosingType$_.$attributeName$)));
+        }
+        public $ValueType$Model.Fetch_ leftFetch$AttributeName$() {
+            return new $ValueType$Model.Fetch_(Criteria.fetch($fetchParent$, $EnclosingType$_.$attributeName$, JoinType.LEFT, parent -> parent.fetch($EnclosingType$_.$attributeName$, JoinType.LEFT)));
+        }
+        """);
+
+    /** The template of fetch methods of entity association in the compact mode. */
+    private static final CompiledTemplate COMPACT_FETCH = CompiledTemplate.of("""
+        public $ValueType$Model.Fetch_ fetch$AttributeName$() {
+            return new $ValueType$Model.Fetch_(Nodes.fetch($fetchParent$, $EnclosingType$_.$attributeName$, JoinType.INNER));
+        }
+        public $ValueType$Model.Fetch_ leftFetch$AttributeName$() {
+            return new $ValueType$Model.Fetch_(Nodes.fetch($fetchParent$, $EnclosingType$_.$attributeName$, JoinType.LEFT));
+        }
+        """);
+
+    /** The template of quantified predicates over the elements of plural attribute of struct type. */
+    private static final CompiledTemplate QUANTIFIER = CompiledTemplate.of("""
+        public Predicate any$AttributeName$(Function<$ValueType$Model.Join_, Predicate> filter) {
+            return quantify$AttributeName$(Criteria.Quantifier.ANY, filter);
+        }
+        public Predicate none$AttributeName$(Function<$ValueType$Model.Join_, Predicate> filter) {
+            return quantify$AttributeName$(Criteria.Quantifier.NONE, filter);
+        }
+        public Predicate all$AttributeName$(Function<$ValueType$Model.Join_, Predicate> filter) {
+            return quantify$AttributeName$(Criteria.Quantifier.ALL, filter);
+        }
+        private Predicate quantify$AttributeName$(Criteria.Quantifier quantifier, Function<$ValueType$Model.Join_, Predicate> filter) {
+            Subquery<Integer> subquery = $statement$.subquery(Integer.class);
+            var join = subquery.correlate($owner$).join($EnclosingType$_.$attributeName$);
+            return Criteria.quantify(quantifier, subquery, filter.apply(new $ValueType$Model.Join_(() -> join, subquery, builder())), builder());
+        }
+        """);
+
     /** Context of processing. */
     private final ModelContext context;
 
     /** Representation of static metamodel. */
-    private final StaticMetamodelEntity entity;
+    private final MetamodelSnapshot entity;
 
     /** Import sentences. */
     private final ImportBuilder imports;
@@ -47,7 +98,7 @@ public abstract class AttributeClassGenerator {
      * @param entity the representation of static metamodel
      * @param imports the import sentences
      */
-    protected AttributeClassGenerator(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    protected AttributeClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         this.context = context;
         this.entity = entity;
         this.imports = imports;
@@ -56,32 +107,36 @@ public abstract class AttributeClassGenerator {
 
     /**
      * Generate class.
-     * @return the generated class definition
+     * @param out the writer to which the class definition is written
      */
-    public String generate() {
+    public void generate(IndentWriter out) {
         var entityName = imports.add(entity.getTargetEntityQualifiedName());
-        return classTemplate().bind(
+        classTemplate().render(out, Map.of(
+            "$Traits$", traitsClause(entityName),
             "$EntityClass$", entityName,
-            "$TreatMethods$", treatMethods(),
-            "$AttributeMethods$", attributeMethods()
-        ).getIndentedValue(1);
+            "$AttributeMethods$", (CompiledTemplate.Fragment) this::attributeMethods));
     }
 
 
-    private String treatMethods() {
-        StringBuilder sb = new StringBuilder();
-        for (StaticMetamodelEntity e : entity.getDescendants()) {
-            var map = Map.of("$DescendantEntityClass$", imports.add(e.getTargetEntityQualifiedName()));
-            treatMethods(map, sb);
-        }
-        var ret = sb.toString();
-        return ret.isBlank() ? "" : ret.substring(Template.firstCharIndexOf(ret));
+    /**
+     * Create the implements clause of the traits interface.
+     * The traits are generated only for entities, they hold the treat methods to the descendants.
+     * @param entityName the name of entity
+     * @return the implements clause of the traits interface
+     */
+    private String traitsClause(String entityName) {
+        return entity.isEntityMetamodel()
+            ? ", " + entityName + "Traits_." + classSimpleName()
+            : "";
     }
 
 
-    private String attributeMethods() {
+    /**
+     * Add all the imports that the generated class refers to, before the class is generated.
+     */
+    public void resolveImports() {
 
-        StringBuilder sb = new StringBuilder();
+        imports.add(entity.getTargetEntityQualifiedName());
 
         for (StaticMetamodelAttribute attr : entity.getAllAttributes()) {
 
@@ -95,6 +150,32 @@ public abstract class AttributeClassGenerator {
                 imports.add(attr.getKeyType().getName() + "_");
             }
 
+            imports.add(attr.getEnclosingType().getName());
+            imports.add(attr.getValueType().getName());
+            if (attr.getAttributeType().isMap()) {
+                imports.add(attr.getKeyType().getName());
+            }
+            if (attr.getAttributeType().isList()) {
+                imports.add("java.util.List");
+            } else if (attr.getAttributeType().isSet()) {
+                imports.add("java.util.Set");
+            } else if (attr.getAttributeType().isCollection()) {
+                imports.add("java.util.Collection");
+            } else if (attr.getAttributeType().isMap()) {
+                imports.add("java.util.Map");
+            }
+        }
+    }
+
+
+    /**
+     * Write the methods of all the attributes.
+     * @param out the writer
+     */
+    protected void attributeMethods(IndentWriter out) {
+
+        for (StaticMetamodelAttribute attr : entity.getAllAttributes()) {
+
             var map = Map.of(
                 "$EnclosingType$",     imports.add(attr.getEnclosingType().getName()),
                 "$ValueType$",         imports.add(attr.getValueType().getName()),
@@ -108,15 +189,13 @@ public abstract class AttributeClassGenerator {
                                      : attr.getAttributeType().isMap() ? imports.add("java.util.Map") : "");
 
             if (attr.getAttributeType().isSingular()) {
-                singularAttribute(attr, map, sb);
+                singularAttribute(attr, map, out);
             } else if (attr.getAttributeType().isMap()) {
-                mapAttribute(attr, map, sb);
+                mapAttribute(attr, map, out);
             } else {
-                collectionAttribute(attr, map, sb);
+                collectionAttribute(attr, map, out);
             }
         }
-        var ret = sb.toString();
-        return ret.substring(Template.firstCharIndexOf(ret));
     }
 
 
@@ -124,42 +203,51 @@ public abstract class AttributeClassGenerator {
      * Get the definition of class template.
      * @return the definition of class template
      */
-    protected abstract Template classTemplate();
+    protected abstract CompiledTemplate classTemplate();
 
 
     /**
      * Write the singular attribute methods.
      * @param attr the {@link StaticMetamodelAttribute}
      * @param map the map of binding value
-     * @param sb the {@link StringBuilder}
+     * @param out the writer
      */
-    protected abstract void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb);
+    protected abstract void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out);
 
 
     /**
      * Write the plural attribute methods.
      * @param attr the {@link StaticMetamodelAttribute}
      * @param map the map of binding value
-     * @param sb the {@link StringBuilder}
+     * @param out the writer
      */
-    protected abstract void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb);
+    protected abstract void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out);
 
 
     /**
      * Write the map attribute methods.
      * @param attr the {@link StaticMetamodelAttribute}
      * @param map the map of binding value
-     * @param sb the {@link StringBuilder}
+     * @param out the writer
      */
-    protected abstract void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb);
+    protected abstract void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out);
 
 
     /**
-     * Write the treat methods.
-     * @param map the map of binding value
-     * @param sb the {@link StringBuilder}
+     * Get the simple name of the generated class.
+     * e.g. {@code Root_}
+     * @return the simple name of the generated class
+     */
+    protected abstract String classSimpleName();
+
+
+    /**
+     * Get whether the models are generated in the compact mode.
+     * @return {@code true} if the compact mode
      */
-    protected abstract void treatMethods(Map<String, String> map, StringBuilder sb);
+    protected boolean isCompact() {
+        return context.isCompact();
+    }
 
 
     /**
@@ -195,51 +283,93 @@ public abstract class AttributeClassGenerator {
 
 
     /**
-     * Create the MapJoin.
+     * Get the path class name of the key or the value of the MapJoin method.
+     * @param arg the type argument
+     * @return the path class name
+     */
+    protected String mapEntryPathClassName(TypeArgument arg) {
+        return arg.getPersistenceType().isStruct()
+            ? imports.add(arg.getName()) + "Model.Path_"
+            : criteriaPathClassName(arg);
+    }
+
+
+    /**
+     * Write the MapJoin method.
      * @param key The key of map
      * @param val The value of map
      * @param fromRoot is root?
-     * @return The MapJoin method string
+     * @param map the map of binding value
+     * @param out the writer
      */
-    protected String createMapJoin(TypeArgument key, TypeArgument val, boolean fromRoot) {
+    protected void writeMapJoin(TypeArgument key, TypeArgument val, boolean fromRoot,
+                                Map<String, String> map, IndentWriter out) {
 
+        final String enclosingType = map.get("$EnclosingType$");
         final String getSource = fromRoot
-            ? "((Root<$EnclosingType$>)(Root<?>) get())"
-            : "((Join<?, $EnclosingType$>)(Join<?, ?>) get())";
+            ? "((Root<" + enclosingType + ">)(Root<?>) get())"
+            : "((Join<?, " + enclosingType + ">)(Join<?, ?>) get())";
 
         final String keyName = imports.add(key.getName());
-        final String keyPath = key.getPersistenceType().isStruct()
-            ? keyName + "Model.Path_"
-            : criteriaPathClassName(key);
+        final String keyPath = mapEntryPathClassName(key);
         final String keyPathClass = key.getPersistenceType().isStruct()
             ? "new " + keyPath + "(() -> join.key(), query(), builder())"
             : "new " + keyPath + "(() -> join.key(), builder())";
 
         final String valName = imports.add(val.getName());
-        final String valPath = val.getPersistenceType().isStruct()
-            ? valName + "Model.Path_"
-            : criteriaPathClassName(val);
+        final String valPath = mapEntryPathClassName(val);
         final String valPathClass = val.getPersistenceType().isStruct()
             ? "new " + valPath + "(() -> join.value(), query(), builder())"
             : "new " + valPath + "(() -> join.value(), builder())";
 
-        return Template.of("""
-            public Predicate join$AttributeName$(BiFunction<$keyPath$, $valPath$, Predicate> fun) {
-                MapJoin<$EnclosingType$, $keyName$, $valName$> join = $getSource$.join($EnclosingType$_.$attributeName$);
-                return fun.apply(
-                    $keyPathClass$,
-                    $valPathClass$
-                );
-            }
-        """).bind(
-            "$getSource$", getSource,
-            "$keyName$", keyName,
-            "$keyPath$", keyPath,
-            "$keyPathClass$", keyPathClass,
-            "$valName$", valName,
-            "$valPath$", valPath,
-            "$valPathClass$", valPathClass
-        ).toString();
+        var values = new HashMap<>(map);
+        values.put("$getSource$", getSource);
+        values.put("$keyName$", keyName);
+        values.put("$keyPath$", keyPath);
+        values.put("$keyPathClass$", keyPathClass);
+        values.put("$valName$", valName);
+        values.put("$valPath$", valPath);
+        values.put("$valPathClass$", valPathClass);
+        MAP_JOIN.render(out, values);
+    }
+
+
+    /**
+     * Write the fetch methods, if the attribute is an association to an entity.
+     * @param attr the {@link StaticMetamodelAttribute}
+     * @param fetchParent the expression of the fetch parent
+     * @param map the map of binding value
+     * @param out the writer
+     */
+    protected void writeFetch(StaticMetamodelAttribute attr, String fetchParent,
+                              Map<String, String> map, IndentWriter out) {
+        if (!attr.getValueType().getPersistenceType().isEntity()) {
+            return;
+        }
+        var values = new HashMap<>(map);
+        values.put("$fetchParent$", fetchParent);
+        (isCompact() ? COMPACT_FETCH : FETCH).render(out, values);
+    }
+
+
+
+    /**
+     * Write the quantified predicates over the elements, joined in a subquery correlated with the owner.
+     * @param attr the {@link StaticMetamodelAttribute}
+     * @param statement the expression of the query or the statement of the owner
+     * @param owner the expression of the owner of the attribute
+     * @param map the map of binding value
+     * @param out the writer
+     */
+    protected void writeQuantifiers(StaticMetamodelAttribute attr, String statement, String owner,
+                                    Map<String, String> map, IndentWriter out) {
+        if (!attr.getValueType().getPersistenceType().isStruct()) {
+            return;
+        }
+        var values = new HashMap<>(map);
+        values.put("$statement$", statement);
+        values.put("$owner$", owner);
+        QUANTIFIER.render(out, values);
     }
 
 }
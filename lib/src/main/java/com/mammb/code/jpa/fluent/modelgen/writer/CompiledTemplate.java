@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The compiled string template.
+ * <p>
+ * The {@code $Placeholder$} markers are parsed once into the segments,
+ * and the template is rendered into an {@link IndentWriter} in a single pass.
+ * A multi-line value is indented to the indentation of the line of its placeholder.
+ * Unlike {@link Template}, the bound values are not themselves searched for placeholders.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class CompiledTemplate {
+
+    /** The literal segments, one more than the placeholders. */
+    private final String[] literals;
+
+    /** The placeholders, e.g. {@code $EntityClass$}. */
+    private final String[] keys;
+
+    /** The indentation of the line of each placeholder. */
+    private final int[] indents;
+
+
+    /**
+     * Constructor.
+     * @param literals the literal segments
+     * @param keys the placeholders
+     * @param indents the indentation of the line of each placeholder
+     */
+    private CompiledTemplate(String[] literals, String[] keys, int[] indents) {
+        this.literals = literals;
+        this.keys = keys;
+        this.indents = indents;
+    }
+
+
+    /**
+     * Compile the given template.
+     * @param template the template string
+     * @return the compiled template
+     */
+    public static CompiledTemplate of(String template) {
+
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Integer> indents = new ArrayList<>();
+
+        int from = 0;
+        int start = template.indexOf('$');
+        while (start >= 0) {
+            int end = template.indexOf('$', start + 1);
+            if (end < 0) {
+                break;
+            }
+            if (!isPlaceholder(template, start + 1, end)) {
+                start = end;
+                continue;
+            }
+            literals.add(template.substring(from, start));
+            keys.add(template.substring(start, end + 1));
+            indents.add(indentOf(template, start));
+            from = end + 1;
+            start = template.indexOf('$', from);
+        }
+        literals.add(template.substring(from));
+
+        return new CompiledTemplate(
+            literals.toArray(String[]::new),
+            keys.toArray(String[]::new),
+            indents.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+
+    /**
+     * Render this template.
+     * <p>
+     * The value of the placeholder is a {@link Fragment} rendered in place, or any object
+     * written as the {@code toString()}. The placeholder without a value is written as it is.
+     * @param out the writer
+     * @param values the values, keyed by the placeholder
+     */
+    public void render(IndentWriter out, Map<String, ?> values) {
+        for (int i = 0; i < keys.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(keys[i]);
+            out.indent(indents[i]);
+            if (value instanceof Fragment fragment) {
+                fragment.render(out);
+            } else {
+                out.append(Objects.isNull(value) ? keys[i] : value.toString());
+            }
+            out.unindent(indents[i]);
+        }
+        out.append(literals[keys.length]);
+    }
+
+
+    /**
+     * Render this template into a string.
+     * @param values the values, keyed by the placeholder
+     * @return the rendered string
+     */
+    public String render(Map<String, ?> values) {
+        var sb = new StringBuilder();
+        render(IndentWriter.of(sb), values);
+        return sb.toString();
+    }
+
+
+    /**
+     * Get whether the characters in the given range is a name of placeholder.
+     * @param str the template string
+     * @param start the index of the first character of name
+     * @param end the index after the last character of name
+     * @return {@code true} if the range is a name of placeholder
+     */
+    private static boolean isPlaceholder(String str, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isJavaIdentifierPart(str.charAt(i)) || str.charAt(i) == '$') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Get the size of the leading whitespace of the line that contains the given index.
+     * @param str the template string
+     * @param index the index
+     * @return the size of the leading whitespace
+     */
+    private static int indentOf(String str, int index) {
+        int lineStart = str.lastIndexOf('\n', index - 1) + 1;
+        int i = lineStart;
+        while (i < index && str.charAt(i) == ' ') {
+            i++;
+        }
+        return i - lineStart;
+    }
+
+
+    /**
+     * The fragment rendered in place of a placeholder.
+     */
+    @FunctionalInterface
+    public interface Fragment {
+
+        /**
+         * Render this fragment.
+         * @param out the writer
+         */
+        void render(IndentWriter out);
+    }
+
+}
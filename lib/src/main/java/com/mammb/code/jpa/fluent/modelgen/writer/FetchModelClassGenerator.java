@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
+
+import java.util.Map;
+
+/**
+ * The fetch model class generator.
+ * <p>
+ * The fetch model is the node of a fetch plan, that has only the fetch methods of the entity associations.
+ * Unlike the join and the path, the fetch is made eagerly, as the fetch itself is the effect.
+ * @see AttributeClassGenerator
+ * @author Naotsugu Kobayashi
+ */
+public class FetchModelClassGenerator extends AttributeClassGenerator {
+
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+
+        public static class Fetch_ implements Supplier<Fetch<?, $EntityClass$>> {
+            private final Fetch<?, $EntityClass$> fetch;
+            public Fetch_(Fetch<?, $EntityClass$> fetch) {
+                this.fetch = fetch;
+            }
+            @Override public Fetch<?, $EntityClass$> get() { return fetch; }
+            $AttributeMethods$
+        }
+        """);
+
+
+    private FetchModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        super(context, entity, imports);
+    }
+
+
+    /**
+     * Create a class writer instance.
+     * @param context the context of processing
+     * @param entity the static metamodel entity
+     * @param imports the import sentences
+     * @return Class writer
+     */
+    public static FetchModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        return new FetchModelClassGenerator(context, entity, imports);
+    }
+
+
+    @Override
+    protected CompiledTemplate classTemplate() {
+        return CLASS;
+    }
+
+
+    @Override
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeFetch(attr, "get()", map, out);
+    }
+
+
+    @Override
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeFetch(attr, "(Fetch<?, " + map.get("$EnclosingType$") + ">)(Fetch<?, ?>) get()", map, out);
+    }
+
+
+    @Override
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+    }
+
+
+    @Override
+    protected String classSimpleName() {
+        return "Fetch_";
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The entity graph model class generator.
+ * <p>
+ * The graph model builds the {@code EntityGraph} of the entity from the attributes of the static metamodel.
+ * The attribute nodes and the subgraphs are added by the name of the static metamodel attributes,
+ * as the typed {@code addSubgraph} does not accept the attributes declared by the super class,
+ * and returns the subgraph of the collection type for plural attributes.
+ * @see SubGraphModelClassGenerator
+ * @author Naotsugu Kobayashi
+ */
+public class GraphModelClassGenerator extends AttributeClassGenerator {
+
+    /** The names of attribute that conflict with the methods of the graph model. */
+    static final Set<String> RESERVED_NAMES = Set.of(
+        "get", "root", "getClass", "hashCode", "toString", "notify", "notifyAll", "wait", "clone", "finalize");
+
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+
+        public static Graph_ graph(EntityManager em) {
+            return new Graph_(em.createEntityGraph($EntityClass$.class));
+        }
+        public static class Graph_ implements Supplier<EntityGraph<$EntityClass$>> {
+            private final EntityGraph<$EntityClass$> graph;
+            public Graph_(EntityGraph<$EntityClass$> graph) {
+                this.graph = graph;
+            }
+            @Override public EntityGraph<$EntityClass$> get() { return graph; }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The template of attribute node. */
+    private static final CompiledTemplate NODE = CompiledTemplate.of("""
+        public Graph_ $attributeName$() {
+            graph.addAttributeNodes($EnclosingType$_.$attributeName$.getName());
+            return this;
+        }
+        """);
+
+    /** The template of subgraph. */
+    private static final CompiledTemplate SUBGRAPH = CompiledTemplate.of("""
+        public $ValueType$Model.SubGraph_<$EntityClass$> $attributeName$() {
+            return new $ValueType$Model.SubGraph_<>(graph.addSubgraph($EnclosingType$_.$attributeName$.getName()), graph);
+        }
+        """);
+
+    /** The name of entity. */
+    private final String entityName;
+
+
+    private GraphModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        super(context, entity, imports);
+        this.entityName = imports.add(entity.getTargetEntityQualifiedName());
+    }
+
+
+    /**
+     * Create a class writer instance.
+     * @param context the context of processing
+     * @param entity the static metamodel entity
+     * @param imports the import sentences
+     * @return Class writer
+     */
+    public static GraphModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        return new GraphModelClassGenerator(context, entity, imports);
+    }
+
+
+    @Override
+    protected CompiledTemplate classTemplate() {
+        return CLASS;
+    }
+
+
+    @Override
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeNode(attr, map, out);
+    }
+
+
+    @Override
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeNode(attr, map, out);
+    }
+
+
+    @Override
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeNode(attr, map, out);
+    }
+
+
+    @Override
+    protected String classSimpleName() {
+        return "Graph_";
+    }
+
+
+    private void writeNode(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        if (RESERVED_NAMES.contains(attr.getName())) {
+            return;
+        }
+        if (attr.getValueType().getPersistenceType().isStruct()) {
+            SUBGRAPH.render(out, Map.of(
+                "$ValueType$", map.get("$ValueType$"),
+                "$EnclosingType$", map.get("$EnclosingType$"),
+                "$attributeName$", map.get("$attributeName$"),
+                "$EntityClass$", entityName));
+        } else {
+            NODE.render(out, map);
+        }
+    }
+
+}
@@ -33,6 +33,9 @@ public class ImportBuilder {
     /** The name of self package. */
     private final String selfPackage;
 
+    /** Whether the imports are frozen. */
+    private boolean frozen;
+
 
     /**
      * Constructor.
@@ -41,6 +44,7 @@ public class ImportBuilder {
     private ImportBuilder(String selfPackage) {
         this.map = new HashMap<>();
         this.selfPackage = Objects.isNull(selfPackage) ? "" : selfPackage;
+        this.frozen = false;
     }
 
 
@@ -73,6 +77,8 @@ public class ImportBuilder {
 
     /**
      * Add import.
+     * Once the imports are frozen, the import is not added,
+     * and the name that is not imported is applied as FQCN.
      * @param fqcn FQCN
      * @return Applied import name
      */
@@ -83,7 +89,9 @@ public class ImportBuilder {
         }
 
         if (fqcn.endsWith("*")) {
-            map.put(fqcn, fqcn);
+            if (!frozen) {
+                map.put(fqcn, fqcn);
+            }
             return fqcn;
         }
 
@@ -91,6 +99,9 @@ public class ImportBuilder {
         if (fqcn.startsWith("java.lang.")) {
             return simpleName;
         } else if (!map.containsKey(simpleName)) {
+            if (frozen && !inPackage(fqcn)) {
+                return fqcn;
+            }
             if (!inPackage(fqcn)) {
                 map.put(simpleName, fqcn);
             }
@@ -103,6 +114,15 @@ public class ImportBuilder {
     }
 
 
+    /**
+     * Freeze the imports.
+     * Used when the imports are written before the body that refers to them.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+
     /**
      * Removes all the imports.
      */
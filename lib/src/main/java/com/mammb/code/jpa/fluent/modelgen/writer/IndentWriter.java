@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The writer that indents the lines written to the underlying {@link Appendable}.
+ * <p>
+ * The indentation is inserted at the beginning of each non-empty line while writing,
+ * so that the nested fragments can be rendered without re-indenting the whole text afterwards.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class IndentWriter {
+
+    /** The spaces used for the indentation. */
+    private static final String SPACES = " ".repeat(64);
+
+    /** The underlying appendable. */
+    private final Appendable out;
+
+    /** The size of current indentation. */
+    private int indent;
+
+    /** Whether the next character is at the beginning of a line. */
+    private boolean lineStart;
+
+
+    /**
+     * Constructor.
+     * @param out the underlying appendable
+     */
+    private IndentWriter(Appendable out) {
+        this.out = out;
+        this.indent = 0;
+        this.lineStart = true;
+    }
+
+
+    /**
+     * Create the indent writer.
+     * @param out the underlying appendable
+     * @return the indent writer
+     */
+    public static IndentWriter of(Appendable out) {
+        return new IndentWriter(out);
+    }
+
+
+    /**
+     * Append the given characters, indenting each line.
+     * @param cs the characters to append
+     * @return this writer
+     */
+    public IndentWriter append(CharSequence cs) {
+        return append(cs, 0, cs.length());
+    }
+
+
+    /**
+     * Append the given range of characters, indenting each line.
+     * @param cs the characters to append
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return this writer
+     */
+    public IndentWriter append(CharSequence cs, int start, int end) {
+        try {
+            int from = start;
+            for (int i = start; i < end; i++) {
+                if (cs.charAt(i) == '\n') {
+                    appendLine(cs, from, i);
+                    out.append('\n');
+                    lineStart = true;
+                    from = i + 1;
+                }
+            }
+            appendLine(cs, from, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+
+    /**
+     * Increase the indentation.
+     * @param size the size of indentation to be added
+     */
+    public void indent(int size) {
+        indent += size;
+    }
+
+
+    /**
+     * Decrease the indentation.
+     * @param size the size of indentation to be removed
+     */
+    public void unindent(int size) {
+        indent -= size;
+    }
+
+
+    /**
+     * Append a part of a line, with the indentation if it is at the beginning of the line.
+     * @param cs the characters to append
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @throws IOException if an I/O error occurs
+     */
+    private void appendLine(CharSequence cs, int start, int end) throws IOException {
+        if (start >= end) {
+            return;
+        }
+        if (lineStart) {
+            for (int n = indent; n > 0; n -= SPACES.length()) {
+                out.append(SPACES, 0, Math.min(n, SPACES.length()));
+            }
+            lineStart = false;
+        }
+        out.append(cs, start, end);
+    }
+
+}
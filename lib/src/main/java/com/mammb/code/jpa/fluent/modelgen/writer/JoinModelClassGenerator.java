@@ -16,8 +16,8 @@
 package com.mammb.code.jpa.fluent.modelgen.writer;
 
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
-import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
 
 import java.util.Map;
 
@@ -28,7 +28,139 @@ import java.util.Map;
  */
 public class JoinModelClassGenerator extends AttributeClassGenerator {
 
-    private JoinModelClassGenerator(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+        public static class Join_ implements Supplier<Join<?, $EntityClass$>>, Criteria.AnyExpression<$EntityClass$, Join<?, $EntityClass$>>$Traits$ {
+            private final Supplier<Join<?, $EntityClass$>> join;
+            protected final AbstractQuery<?> query;
+            protected final CriteriaBuilder builder;
+            private Join<?, $EntityClass$> resolved;
+            public Join_(Supplier<Join<?, $EntityClass$>> join, AbstractQuery<?> query, CriteriaBuilder builder) {
+                this.join = join;
+                this.query = query;
+                this.builder = builder;
+            }
+            @Override public Join<?, $EntityClass$> get() { return resolved == null ? (resolved = join.get()) : resolved; }
+            @Override public CriteriaBuilder builder() { return builder; }
+            public AbstractQuery<?> query() { return query; }
+            public CommonAbstractCriteria statement() { return query(); }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The class template in the compact mode. */
+    private static final CompiledTemplate COMPACT_CLASS = CompiledTemplate.of("""
+        public static class Join_ extends Nodes.JoinNode<$EntityClass$> implements Criteria.AnyExpression<$EntityClass$, Join<?, $EntityClass$>>$Traits$ {
+            public Join_(Supplier<Join<?, $EntityClass$>> join, AbstractQuery<?> query, CriteriaBuilder builder) {
+                super(join, query, builder);
+            }
+            public Join_(Supplier<? extends From<?, ?>> parent, Attribute<?, ?> attribute, JoinType joinType,
+                    boolean reuse, AbstractQuery<?> query, CriteriaBuilder builder) {
+                super(parent, attribute, joinType, reuse, query, builder);
+            }
+            public CommonAbstractCriteria statement() { return query(); }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The template of singular attribute of struct type. */
+    private static final CompiledTemplate SINGULAR_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join(get(), $EnclosingType$_.$attributeName$, JoinType.INNER, from -> from.join($EnclosingType$_.$attributeName$)), query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join(get(), $EnclosingType$_.$attributeName$, JoinType.LEFT, from -> from.join($EnclosingType$_.$attributeName$, JoinType.LEFT)), query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(() -> get().join($EnclosingType$_.$attributeName$, joinType), query(), builder());
+        }
+        public $ValueType$Model.Path_ get$AttributeName$() {
+            return new $ValueType$Model.Path_(() -> get().get($EnclosingType$_.$attributeName$), query(), builder());
+        }
+        """);
+
+    /** The template of singular attribute of basic type. */
+    private static final CompiledTemplate SINGULAR = CompiledTemplate.of("""
+        public $CriteriaPathClass$ get$AttributeName$() {
+            return new $CriteriaPathClass$(this, $EnclosingType$_.$attributeName$, builder());
+        }
+        """);
+
+    /** The template of plural attribute join of struct type. */
+    private static final CompiledTemplate COLLECTION_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join((Join<?, $EnclosingType$>)(Join<?, ?>) get(), $EnclosingType$_.$attributeName$, JoinType.INNER, from -> from.join($EnclosingType$_.$attributeName$)), query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join((Join<?, $EnclosingType$>)(Join<?, ?>) get(), $EnclosingType$_.$attributeName$, JoinType.LEFT, from -> from.join($EnclosingType$_.$attributeName$, JoinType.LEFT)), query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(() -> ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).join($EnclosingType$_.$attributeName$, joinType), query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute join of basic type. */
+    private static final CompiledTemplate COLLECTION_JOIN = CompiledTemplate.of("""
+        public $AttributeJavaType$Join<$EnclosingType$, $ValueType$> join$AttributeName$() {
+            return Criteria.join((Join<?, $EnclosingType$>)(Join<?, ?>) get(), $EnclosingType$_.$attributeName$, JoinType.INNER, from -> from.join($EnclosingType$_.$attributeName$));
+        }
+        public $AttributeJavaType$Join<$EnclosingType$, $ValueType$> newJoin$AttributeName$(JoinType joinType) {
+            return ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).join($EnclosingType$_.$attributeName$, joinType);
+        }
+        """);
+
+    /** The template of plural attribute. */
+    private static final CompiledTemplate COLLECTION = CompiledTemplate.of("""
+        public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
+            return new Criteria.CollectionExp(() -> ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).get($EnclosingType$_.$attributeName$), builder());
+        }
+        """);
+
+    /** The template of singular attribute of struct type in the compact mode. */
+    private static final CompiledTemplate COMPACT_SINGULAR_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.INNER, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.LEFT, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, joinType, false, query(), builder());
+        }
+        public $ValueType$Model.Path_ get$AttributeName$() {
+            return new $ValueType$Model.Path_(this, $EnclosingType$_.$attributeName$, query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute join of struct type in the compact mode. */
+    private static final CompiledTemplate COMPACT_COLLECTION_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.INNER, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.LEFT, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, joinType, false, query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute in the compact mode. */
+    private static final CompiledTemplate COMPACT_COLLECTION = CompiledTemplate.of("""
+        public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
+            return new Criteria.CollectionExp<>(this, $EnclosingType$_.$attributeName$, builder());
+        }
+        """);
+
+    /** The template of map attribute. */
+    private static final CompiledTemplate MAP = CompiledTemplate.of("""
+        public Expression<Map<$KeyType$, $ValueType$>> get$AttributeName$() {
+            return ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).get($EnclosingType$_.$attributeName$);
+        }
+        """);
+
+
+    private JoinModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         super(context, entity, imports);
     }
 
@@ -40,101 +172,51 @@ public class JoinModelClassGenerator extends AttributeClassGenerator {
      * @param imports the import sentences
      * @return Class writer
      */
-    public static JoinModelClassGenerator of(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    public static JoinModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         return new JoinModelClassGenerator(context, entity, imports);
     }
 
 
     @Override
-    protected Template classTemplate() {
-        return Template.of("""
-            public static class Join_ implements Supplier<Join<?, $EntityClass$>>, Criteria.AnyExpression<$EntityClass$, Join<?, $EntityClass$>> {
-                private final Supplier<Join<?, $EntityClass$>> join;
-                protected final AbstractQuery<?> query;
-                protected final CriteriaBuilder builder;
-                public Join_(Supplier<Join<?, $EntityClass$>> join, AbstractQuery<?> query, CriteriaBuilder builder) {
-                    this.join = join;
-                    this.query = query;
-                    this.builder = builder;
-                }
-                @Override public Join<?, $EntityClass$> get() { return join.get(); }
-                @Override public CriteriaBuilder builder() { return builder; }
-                public AbstractQuery<?> query() { return query; }
-                $AttributeMethods$
-                $TreatMethods$
-            }
-            """);
+    protected CompiledTemplate classTemplate() {
+        return isCompact() ? COMPACT_CLASS : CLASS;
     }
 
 
     @Override
-    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
         if (attr.getValueType().getPersistenceType().isStruct()) {
-            sb.append(Template.of("""
-                public $ValueType$Model.Join_ join$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> get().join($EnclosingType$_.$attributeName$), query(), builder());
-                }
-                public $ValueType$Model.Join_ leftJoin$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> get().join($EnclosingType$_.$attributeName$, JoinType.LEFT), query(), builder());
-                }
-                public $ValueType$Model.Path_ get$AttributeName$() {
-                    return new $ValueType$Model.Path_(() -> get().get($EnclosingType$_.$attributeName$), query(), builder());
-                }
-            """).bind(map));
+            (isCompact() ? COMPACT_SINGULAR_STRUCT : SINGULAR_STRUCT).render(out, map);
+            writeFetch(attr, "Criteria.fetchable(query(), get())", map, out);
         } else {
-            sb.append(Template.of("""
-                public $CriteriaPathClass$ get$AttributeName$() {
-                    return new $CriteriaPathClass$(() -> get().get($EnclosingType$_.$attributeName$), builder());
-                }
-            """).bind(map));
+            SINGULAR.render(out, map);
         }
     }
 
 
     @Override
-    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
         if (attr.getValueType().getPersistenceType().isStruct()) {
-            sb.append(Template.of("""
-                public $ValueType$Model.Join_ join$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).join($EnclosingType$_.$attributeName$), query(), builder());
-                }
-                public $ValueType$Model.Join_ leftJoin$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).join($EnclosingType$_.$attributeName$, JoinType.LEFT), query(), builder());
-                }
-            """).bind(map));
+            (isCompact() ? COMPACT_COLLECTION_STRUCT : COLLECTION_STRUCT).render(out, map);
+            writeFetch(attr, "Criteria.fetchable(query(), (Join<?, " + map.get("$EnclosingType$") + ">)(Join<?, ?>) get())", map, out);
+            writeQuantifiers(attr, "statement()", "(Join<?, " + map.get("$EnclosingType$") + ">)(Join<?, ?>) get()", map, out);
         } else {
-            sb.append(Template.of("""
-                public $AttributeJavaType$Join<T, $ValueType$> join$AttributeName$() {
-                    return ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).join($EnclosingType$_.$attributeName$);
-                }
-            """).bind(map));
-        }
-        sb.append(Template.of("""
-            public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
-                return new Criteria.CollectionExp(() -> ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).get($EnclosingType$_.$attributeName$), builder());
-            }
-        """).bind(map));
+            COLLECTION_JOIN.render(out, map);
+        }
+        (isCompact() ? COMPACT_COLLECTION : COLLECTION).render(out, map);
     }
 
 
     @Override
-    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of(createMapJoin(attr.getKeyType(), attr.getValueType(), false)).bind(map));
-        sb.append(Template.of("""
-            public Expression<Map<$KeyType$, $ValueType$>> get$AttributeName$() {
-                return ((Join<?, $EnclosingType$>)(Join<?, ?>) get()).get($EnclosingType$_.$attributeName$);
-            }
-        """).bind(map));
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeMapJoin(attr.getKeyType(), attr.getValueType(), false, map, out);
+        MAP.render(out, map);
     }
 
 
     @Override
-    protected void treatMethods(Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of("""
-            public $DescendantEntityClass$Model.Join_ as$DescendantEntityClass$() {
-                return new $DescendantEntityClass$Model.Join_(() -> builder().treat(get(), $DescendantEntityClass$.class), query(), builder());
-            }
-        """).bind(map));
+    protected String classSimpleName() {
+        return "Join_";
     }
 
 }
@@ -19,6 +19,7 @@ import com.mammb.code.jpa.fluent.modelgen.context.Context;
 import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
 import com.mammb.code.jpa.fluent.modelgen.model.MappableType;
 
+import javax.lang.model.element.Element;
 import java.io.PrintWriter;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -76,7 +77,8 @@ public class MappersClassWriter {
         addDefaultImports();
 
         try (PrintWriter pw = new PrintWriter(
-            context.getFiler().createSourceFile(fqcn).openOutputStream())) {
+            context.getFiler().createSourceFile(fqcn, types.stream()
+                .map(MappableType::getElement).toArray(Element[]::new)).openOutputStream())) {
 
             pw.println(Template.of("""
                 package $packageName$;
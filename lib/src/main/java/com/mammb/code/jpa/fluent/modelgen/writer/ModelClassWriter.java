@@ -17,37 +17,129 @@ package com.mammb.code.jpa.fluent.modelgen.writer;
 
 import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
-import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 
 import javax.annotation.processing.FilerException;
 import javax.tools.FileObject;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
 
 /**
  * The model class writer using the {@link javax.annotation.processing.Filer} API.
+ * <p>
+ * The imports are resolved from the attributes of the static metamodel first,
+ * then the package, the imports and the body are streamed into the Filer without buffering the body.
  * @author Naotsugu Kobayashi
  */
 public class ModelClassWriter {
 
+    /** The template of model class. */
+    private static final CompiledTemplate BODY = CompiledTemplate.of("""
+        @Generated(value = "$GeneratorClass$")
+        @SuppressWarnings("unchecked")
+        public class $ClassName$Model {
+
+            public static Root_ root(Root<$ClassName$> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+                return new Root_(root, query, builder);
+            }
+            public static RootSource<$ClassName$, Root_> root() {
+                return new RootSource<$ClassName$, Root_>() {
+                    @Override public Root_ root(Root<$ClassName$> source, AbstractQuery<?> query, CriteriaBuilder builder) {
+                        return new Root_(source, query, builder);
+                    }
+                    @Override public Class<$ClassName$> rootClass() { return $ClassName$.class; }
+                };
+            }$SelectMethods$$SubqueryMethods$
+            $RootClass$
+
+            $JoinClass$
+
+            $PathClass$$FetchClass$$GraphClass$$UpdateClass$$SubGraphClass$
+        }
+        """);
+
+    /** The template of the projection methods, for the entity. */
+    private static final CompiledTemplate SELECT = CompiledTemplate.of("""
+
+        public static <T1> Projection<$ClassName$, Root_, Projection.Row1<T1>> select(Criteria.Selector<$ClassName$, Root_, T1> s1) {
+            return Projection.of(root(), s1);
+        }
+        public static <T1, T2> Projection<$ClassName$, Root_, Projection.Row2<T1, T2>> select(Criteria.Selector<$ClassName$, Root_, T1> s1, Criteria.Selector<$ClassName$, Root_, T2> s2) {
+            return Projection.of(root(), s1, s2);
+        }
+        public static <T1, T2, T3> Projection<$ClassName$, Root_, Projection.Row3<T1, T2, T3>> select(Criteria.Selector<$ClassName$, Root_, T1> s1, Criteria.Selector<$ClassName$, Root_, T2> s2, Criteria.Selector<$ClassName$, Root_, T3> s3) {
+            return Projection.of(root(), s1, s2, s3);
+        }
+        public static <T1, T2, T3, T4> Projection<$ClassName$, Root_, Projection.Row4<T1, T2, T3, T4>> select(Criteria.Selector<$ClassName$, Root_, T1> s1, Criteria.Selector<$ClassName$, Root_, T2> s2, Criteria.Selector<$ClassName$, Root_, T3> s3, Criteria.Selector<$ClassName$, Root_, T4> s4) {
+            return Projection.of(root(), s1, s2, s3, s4);
+        }
+        public static <T1, T2, T3, T4, T5> Projection<$ClassName$, Root_, Projection.Row5<T1, T2, T3, T4, T5>> select(Criteria.Selector<$ClassName$, Root_, T1> s1, Criteria.Selector<$ClassName$, Root_, T2> s2, Criteria.Selector<$ClassName$, Root_, T3> s3, Criteria.Selector<$ClassName$, Root_, T4> s4, Criteria.Selector<$ClassName$, Root_, T5> s5) {
+            return Projection.of(root(), s1, s2, s3, s4, s5);
+        }
+        public static <T1, T2, T3, T4, T5, T6> Projection<$ClassName$, Root_, Projection.Row6<T1, T2, T3, T4, T5, T6>> select(Criteria.Selector<$ClassName$, Root_, T1> s1, Criteria.Selector<$ClassName$, Root_, T2> s2, Criteria.Selector<$ClassName$, Root_, T3> s3, Criteria.Selector<$ClassName$, Root_, T4> s4, Criteria.Selector<$ClassName$, Root_, T5> s5, Criteria.Selector<$ClassName$, Root_, T6> s6) {
+            return Projection.of(root(), s1, s2, s3, s4, s5, s6);
+        }""");
+
+    /** The template of the subquery methods, for the entity. */
+    private static final CompiledTemplate SUBQUERY = CompiledTemplate.of("""
+
+        public static <U> Root_ subquery(AbstractQuery<?> parentQuery, Class<U> type, CriteriaBuilder builder) {
+            Subquery<U> subquery = parentQuery.subquery(type);
+            return new Root_(subquery.from($ClassName$.class), subquery, builder);
+        }
+        public static Root_ correlate(Root_ parent) {
+            Subquery<$ClassName$> subquery = parent.statement().subquery($ClassName$.class);
+            return new Root_(subquery.correlate(parent.get()), subquery, parent.builder());
+        }""");
+
     /** Context of processing. */
     private final ModelContext context;
 
     /** Representation of static metamodel. */
-    private final StaticMetamodelEntity entity;
+    private final MetamodelSnapshot entity;
 
     /** Import sentences. */
     private final ImportBuilder imports;
 
+    /** The root model class generator. */
+    private final AttributeClassGenerator root;
+
+    /** The join model class generator. */
+    private final AttributeClassGenerator join;
+
+    /** The path model class generator. */
+    private final AttributeClassGenerator path;
+
+    /** The fetch model class generator. */
+    private final AttributeClassGenerator fetch;
+
+    /** The entity graph model class generator. */
+    private final AttributeClassGenerator graph;
+
+    /** The bulk update and delete model class generator. */
+    private final AttributeClassGenerator update;
+
+    /** The subgraph model class generator. */
+    private final AttributeClassGenerator subGraph;
+
 
     /**
      * Constructor.
      * @param context the context of processing
      * @param entity the representation of static metamodel
      */
-    protected ModelClassWriter(ModelContext context, StaticMetamodelEntity entity) {
+    protected ModelClassWriter(ModelContext context, MetamodelSnapshot entity) {
         this.context = context;
         this.entity = entity;
         this.imports = ImportBuilder.of(entity.getPackageName());
+        this.root = RootModelClassGenerator.of(context, entity, imports);
+        this.join = JoinModelClassGenerator.of(context, entity, imports);
+        this.path = PathModelClassGenerator.of(context, entity, imports);
+        this.fetch = FetchModelClassGenerator.of(context, entity, imports);
+        this.graph = GraphModelClassGenerator.of(context, entity, imports);
+        this.update = UpdateModelClassGenerator.of(context, entity, imports);
+        this.subGraph = SubGraphModelClassGenerator.of(context, entity, imports);
     }
 
 
@@ -57,7 +149,7 @@ public class ModelClassWriter {
      * @param entity the static metamodel entity
      * @return Class writer
      */
-    public static ModelClassWriter of(ModelContext context, StaticMetamodelEntity entity) {
+    public static ModelClassWriter of(ModelContext context, MetamodelSnapshot entity) {
         return new ModelClassWriter(context, entity);
     }
 
@@ -71,10 +163,42 @@ public class ModelClassWriter {
             FileObject fo = context.getFiler().createSourceFile(
                 entity.getTargetEntityQualifiedName() + "Model", entity.getElement());
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
-                String body = generateBody();
-                writePackageTo(pw);
-                writeImportTo(pw);
-                pw.println(body);
+                writeTo(pw);
+                pw.flush();
+            }
+        } catch (FilerException e) {
+            context.logError("Problem with Filer: {}", e.getMessage());
+        } catch (Exception e) {
+            context.logError("Problem opening file to write Model for {} : {}", entity.getSimpleName(), e.getMessage());
+        }
+    }
+
+
+    /**
+     * Render the source of the generated class, without the Filer.
+     * This can be called from other than the compiler thread.
+     * @return the source of the generated class
+     */
+    public String render() {
+        var sw = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(sw)) {
+            writeTo(pw);
+        }
+        return sw.toString();
+    }
+
+
+    /**
+     * Write the source rendered by {@link #render()} as a generated class file.
+     * @param source the rendered source
+     */
+    public void writeFile(String source) {
+        context.logDebug("Create meta model : {}", entity.getQualifiedName());
+        try {
+            FileObject fo = context.getFiler().createSourceFile(
+                entity.getTargetEntityQualifiedName() + "Model", entity.getElement());
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+                pw.print(source);
                 pw.flush();
             }
         } catch (FilerException e) {
@@ -85,6 +209,14 @@ public class ModelClassWriter {
     }
 
 
+    private void writeTo(PrintWriter pw) {
+        writePackageTo(pw);
+        writeImportTo(pw);
+        writeBodyTo(pw);
+        pw.println();
+    }
+
+
     private void writePackageTo(PrintWriter pw) {
         if (imports.getSelfPackage().isEmpty()) {
             return;
@@ -94,11 +226,19 @@ public class ModelClassWriter {
     }
 
     private void writeImportTo(PrintWriter pw) {
+        root.resolveImports();
+        imports.add("jakarta.persistence.EntityGraph");
+        imports.add("jakarta.persistence.EntityManager");
+        imports.add("jakarta.persistence.Subgraph");
         imports.add("jakarta.persistence.criteria.CriteriaBuilder");
         imports.add("jakarta.persistence.criteria.CriteriaQuery");
+        imports.add("jakarta.persistence.criteria.CriteriaUpdate");
+        imports.add("jakarta.persistence.criteria.CriteriaDelete");
+        imports.add("jakarta.persistence.criteria.CommonAbstractCriteria");
         imports.add("jakarta.persistence.criteria.Subquery");
         imports.add("jakarta.persistence.criteria.AbstractQuery");
         imports.add("jakarta.persistence.criteria.Expression");
+        imports.add("jakarta.persistence.criteria.Fetch");
         imports.add("jakarta.persistence.criteria.Predicate");
         imports.add("jakarta.persistence.criteria.Root");
         imports.add("jakarta.persistence.criteria.Join");
@@ -113,43 +253,38 @@ public class ModelClassWriter {
         imports.add("java.util.Set");
         imports.add("java.util.Collection");
         imports.add("java.util.function.BiFunction");
+        imports.add("java.util.function.Function");
         imports.add("java.util.function.Supplier");
         imports.add("javax.annotation.processing.Generated");
         imports.add(ApiClassWriter.PACKAGE_NAME + ".*;");
+        if (context.isCompact()) {
+            imports.add("jakarta.persistence.criteria.From");
+            imports.add("jakarta.persistence.metamodel.Attribute");
+            imports.add("jakarta.persistence.metamodel.SingularAttribute");
+        }
+        imports.freeze();
         pw.println(imports.generateImports(context.isJakarta()));
         pw.println();
     }
 
 
-    private String generateBody() {
-        return Template.of("""
-            @Generated(value = "$GeneratorClass$")
-            @SuppressWarnings("unchecked")
-            public class $ClassName$Model {
-
-                public static Root_ root(Root<$ClassName$> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
-                    return new Root_(root, query, builder);
-                }
-                public static RootSource<$ClassName$, Root_> root() {
-                    return new RootSource<$ClassName$, Root_>() {
-                        @Override public Root_ root(Root<$ClassName$> source, AbstractQuery<?> query, CriteriaBuilder builder) {
-                            return new Root_(source, query, builder);
-                        }
-                        @Override public Class<$ClassName$> rootClass() { return $ClassName$.class; }
-                    };
-                }
-                $RootClass$
-
-                $JoinClass$
-
-                $PathClass$
-            }
-            """).bind(
-            "$GeneratorClass$", JpaModelProcessor.class.getName(),
-            "$ClassName$", entity.getTargetEntityName(),
-            "$RootClass$", RootModelClassGenerator.of(context, entity, imports).generate(),
-            "$JoinClass$", JoinModelClassGenerator.of(context, entity, imports).generate(),
-            "$PathClass$", PathModelClassGenerator.of(context, entity, imports).generate()).getValue();
+    private void writeBodyTo(PrintWriter pw) {
+        BODY.render(IndentWriter.of(pw), Map.ofEntries(
+            Map.entry("$GeneratorClass$", JpaModelProcessor.class.getName()),
+            Map.entry("$ClassName$", entity.getTargetEntityName()),
+            Map.entry("$SelectMethods$", entity.isEntityMetamodel()
+                ? (CompiledTemplate.Fragment) out -> SELECT.render(out, Map.of("$ClassName$", entity.getTargetEntityName()))
+                : ""),
+            Map.entry("$SubqueryMethods$", entity.isEntityMetamodel()
+                ? (CompiledTemplate.Fragment) out -> SUBQUERY.render(out, Map.of("$ClassName$", entity.getTargetEntityName()))
+                : ""),
+            Map.entry("$RootClass$", (CompiledTemplate.Fragment) root::generate),
+            Map.entry("$JoinClass$", (CompiledTemplate.Fragment) join::generate),
+            Map.entry("$PathClass$", (CompiledTemplate.Fragment) path::generate),
+            Map.entry("$FetchClass$", entity.isEntityMetamodel() ? (CompiledTemplate.Fragment) fetch::generate : ""),
+            Map.entry("$GraphClass$", entity.isEntityMetamodel() ? (CompiledTemplate.Fragment) graph::generate : ""),
+            Map.entry("$UpdateClass$", entity.isEntityMetamodel() ? (CompiledTemplate.Fragment) update::generate : ""),
+            Map.entry("$SubGraphClass$", (CompiledTemplate.Fragment) subGraph::generate)));
     }
 
 }
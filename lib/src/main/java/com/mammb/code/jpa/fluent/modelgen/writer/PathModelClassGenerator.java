@@ -16,8 +16,8 @@
 package com.mammb.code.jpa.fluent.modelgen.writer;
 
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
-import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
 
 import java.util.Map;
 
@@ -28,7 +28,83 @@ import java.util.Map;
  */
 public class PathModelClassGenerator extends AttributeClassGenerator {
 
-    private PathModelClassGenerator(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+        public static class Path_ implements Supplier<Path<$EntityClass$>>, Criteria.AnyExpression<$EntityClass$, Path<$EntityClass$>>$Traits$ {
+            private final Supplier<Path<$EntityClass$>> path;
+            private final AbstractQuery<?> query;
+            private final CriteriaBuilder builder;
+            private Path<$EntityClass$> resolved;
+            public Path_(Supplier<Path<$EntityClass$>> path, AbstractQuery<?> query, CriteriaBuilder builder) {
+                this.path = path;
+                this.query = query;
+                this.builder = builder;
+            }
+            @Override public Path<$EntityClass$> get() { return resolved == null ? (resolved = path.get()) : resolved; }
+            @Override public CriteriaBuilder builder() { return builder; }
+            public AbstractQuery<?> query() { return query; }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The class template in the compact mode. */
+    private static final CompiledTemplate COMPACT_CLASS = CompiledTemplate.of("""
+        public static class Path_ extends Nodes.PathNode<$EntityClass$> implements Criteria.AnyExpression<$EntityClass$, Path<$EntityClass$>>$Traits$ {
+            public Path_(Supplier<Path<$EntityClass$>> path, AbstractQuery<?> query, CriteriaBuilder builder) {
+                super(path, query, builder);
+            }
+            public Path_(Supplier<? extends Path<?>> parent, SingularAttribute<?, $EntityClass$> attribute,
+                    AbstractQuery<?> query, CriteriaBuilder builder) {
+                super(parent, attribute, query, builder);
+            }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The template of singular attribute of struct type. */
+    private static final CompiledTemplate SINGULAR_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Path_ get$AttributeName$() {
+            return new $ValueType$Model.Path_(() -> get().get($EnclosingType$_.$attributeName$), query(), builder());
+        }
+        """);
+
+    /** The template of singular attribute of basic type. */
+    private static final CompiledTemplate SINGULAR = CompiledTemplate.of("""
+        public $CriteriaPathClass$ get$AttributeName$() {
+            return new $CriteriaPathClass$(this, $EnclosingType$_.$attributeName$, builder());
+        }
+        """);
+
+    /** The template of plural attribute. */
+    private static final CompiledTemplate COLLECTION = CompiledTemplate.of("""
+        public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
+            return new Criteria.CollectionExp(() -> ((Path<$EnclosingType$>)(Path<?>) get()).get($EnclosingType$_.$attributeName$), builder());
+        }
+        """);
+
+    /** The template of singular attribute of struct type in the compact mode. */
+    private static final CompiledTemplate COMPACT_SINGULAR_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Path_ get$AttributeName$() {
+            return new $ValueType$Model.Path_(this, $EnclosingType$_.$attributeName$, query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute in the compact mode. */
+    private static final CompiledTemplate COMPACT_COLLECTION = CompiledTemplate.of("""
+        public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
+            return new Criteria.CollectionExp<>(this, $EnclosingType$_.$attributeName$, builder());
+        }
+        """);
+
+    /** The template of map attribute. */
+    private static final CompiledTemplate MAP = CompiledTemplate.of("""
+        public Expression<Map<$KeyType$, $ValueType$>> get$AttributeName$() {
+            return ((Path<$EnclosingType$>)(Path<?>) get()).get($EnclosingType$_.$attributeName$);
+        }
+        """);
+
+
+    private PathModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         super(context, entity, imports);
     }
 
@@ -40,78 +116,42 @@ public class PathModelClassGenerator extends AttributeClassGenerator {
      * @param imports the import sentences
      * @return Class writer
      */
-    public static PathModelClassGenerator of(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    public static PathModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         return new PathModelClassGenerator(context, entity, imports);
     }
 
 
     @Override
-    protected Template classTemplate() {
-        return Template.of("""
-            public static class Path_ implements Supplier<Path<$EntityClass$>>, Criteria.AnyExpression<$EntityClass$, Path<$EntityClass$>> {
-                private final Supplier<Path<$EntityClass$>> path;
-                private final AbstractQuery<?> query;
-                private final CriteriaBuilder builder;
-                public Path_(Supplier<Path<$EntityClass$>> path, AbstractQuery<?> query, CriteriaBuilder builder) {
-                    this.path = path;
-                    this.query = query;
-                    this.builder = builder;
-                }
-                @Override public Path<$EntityClass$> get() { return path.get(); }
-                @Override public CriteriaBuilder builder() { return builder; }
-                public AbstractQuery<?> query() { return query; }
-                $AttributeMethods$
-                $TreatMethods$
-            }
-            """);
+    protected CompiledTemplate classTemplate() {
+        return isCompact() ? COMPACT_CLASS : CLASS;
     }
 
 
     @Override
-    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
         if (attr.getValueType().getPersistenceType().isStruct()) {
-            sb.append(Template.of("""
-                public $ValueType$Model.Path_ get$AttributeName$() {
-                    return new $ValueType$Model.Path_(() -> get().get($EnclosingType$_.$attributeName$), query(), builder());
-                }
-            """).bind(map));
+            (isCompact() ? COMPACT_SINGULAR_STRUCT : SINGULAR_STRUCT).render(out, map);
         } else {
-            sb.append(Template.of("""
-                public $CriteriaPathClass$ get$AttributeName$() {
-                    return new $CriteriaPathClass$(() -> get().get($EnclosingType$_.$attributeName$), builder());
-                }
-            """).bind(map));
+            SINGULAR.render(out, map);
         }
     }
 
 
     @Override
-    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of("""
-            public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
-                return new Criteria.CollectionExp(() -> ((Path<$EnclosingType$>)(Path<?>) get()).get($EnclosingType$_.$attributeName$), builder());
-            }
-        """).bind(map));
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        (isCompact() ? COMPACT_COLLECTION : COLLECTION).render(out, map);
     }
 
 
     @Override
-    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of("""
-            public Expression<Map<$KeyType$, $ValueType$>> get$AttributeName$() {
-                return ((Path<$EnclosingType$>)(Path<?>) get()).get($EnclosingType$_.$attributeName$);
-            }
-        """).bind(map));
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        MAP.render(out, map);
     }
 
 
     @Override
-    protected void treatMethods(Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of("""
-            public $DescendantEntityClass$Model.Path_ as$DescendantEntityClass$() {
-                return new $DescendantEntityClass$Model.Path_(() -> builder().treat(get(), $DescendantEntityClass$.class), query(), builder());
-            }
-        """).bind(map));
+    protected String classSimpleName() {
+        return "Path_";
     }
 
 }
@@ -17,15 +17,14 @@ package com.mammb.code.jpa.fluent.modelgen.writer;
 
 import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
-import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 
 import javax.annotation.processing.FilerException;
 import javax.tools.FileObject;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Objects;
 
-import static java.util.function.Predicate.not;
-
 /**
  * The repository class writer.
  * @author Naotsugu Kobayashi
@@ -36,7 +35,7 @@ public class RepositoryClassWriter {
     private final ModelContext context;
 
     /** Representation of static metamodel. */
-    private final StaticMetamodelEntity entity;
+    private final MetamodelSnapshot entity;
 
     /** Import sentences. */
     private final ImportBuilder imports;
@@ -47,7 +46,7 @@ public class RepositoryClassWriter {
      * @param context the context of processing
      * @param entity the representation of static metamodel
      */
-    protected RepositoryClassWriter(ModelContext context, StaticMetamodelEntity entity) {
+    protected RepositoryClassWriter(ModelContext context, MetamodelSnapshot entity) {
         this.context = context;
         this.entity = entity;
         this.imports = ImportBuilder.of(entity.getPackageName());
@@ -60,7 +59,7 @@ public class RepositoryClassWriter {
      * @param entity the representation of static metamodel
      * @return Root class factory writer
      */
-    public static RepositoryClassWriter of(ModelContext context, StaticMetamodelEntity entity) {
+    public static RepositoryClassWriter of(ModelContext context, MetamodelSnapshot entity) {
         return new RepositoryClassWriter(context, entity);
     }
 
@@ -69,6 +68,15 @@ public class RepositoryClassWriter {
      * Write a generated class file.
      */
     public void writeFile() {
+        writeFile(render());
+    }
+
+
+    /**
+     * Write the source rendered by {@link #render()} as a generated class file.
+     * @param source the rendered source
+     */
+    public void writeFile(String source) {
 
         context.logDebug("Create repository : {}", entity.getQualifiedName());
 
@@ -78,37 +86,7 @@ public class RepositoryClassWriter {
                 entity.getTargetEntityQualifiedName() + "Repository_", entity.getElement());
 
             try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
-
-                var extendsClause = String.join(", ", context.getRepositoryTraitTypes().stream()
-                    .map(trait -> trait.createExtendsClause(entity, imports))
-                    .filter(not(String::isEmpty))
-                    .toArray(String[]::new));
-
-                var body = """
-                    public interface %2$sRepository_ extends Repository<%1$s, %2$s, %2$sModel.Root_>{extends} {
-                        default RootSource<%2$s, %2$sModel.Root_> rootSource() {
-                            return %2$sModel.root();
-                        }
-                    }
-                    """
-                    .replace("{extends}", extendsClause.isEmpty() ? "" : (", " + extendsClause))
-                    .formatted(
-                        imports.add(entity.getEntityIdType().get().toString()),  // %1$s
-                        imports.add(entity.getTargetEntityQualifiedName()),      // %2$s
-                        unCapitalize(entity.getTargetEntityName())               // %3$s
-                    );
-
-                pw.println("package " + imports.getSelfPackage() + ";");
-                pw.println();
-
-                imports.add("javax.annotation.processing.Generated");
-                imports.add(ApiClassWriter.PACKAGE_NAME + ".*");
-                imports.add(entity.getTargetEntityQualifiedName() + "Model");
-                pw.println(imports.generateImports(context.isJakarta()));
-                pw.println();
-
-                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
-                pw.println(body);
+                pw.print(source);
                 pw.flush();
             }
 
@@ -119,6 +97,51 @@ public class RepositoryClassWriter {
         }
     }
 
+
+    /**
+     * Render the source of the generated class, without the Filer.
+     * This can be called from other than the compiler thread.
+     * @return the source of the generated class
+     */
+    public String render() {
+
+        var sw = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(sw)) {
+            var body = """
+                public interface %2$sRepository_ extends Repository<%1$s, %2$s, %2$sModel.Root_>, %2$sTraits_.Repository_ {
+                    default RootSource<%2$s, %2$sModel.Root_> rootSource() {
+                        return %2$sModel.root();
+                    }
+                    default SingularAttribute<? super %2$s, %1$s> idAttribute() {
+                        return %4$s.%5$s;
+                    }
+                }
+                """
+                .formatted(
+                    imports.add(entity.getEntityIdType().get()),             // %1$s
+                    imports.add(entity.getTargetEntityQualifiedName()),      // %2$s
+                    unCapitalize(entity.getTargetEntityName()),              // %3$s
+                    imports.add(entity.getQualifiedName()),                  // %4$s
+                    entity.getEntityIdName().get()                           // %5$s
+                );
+
+            pw.println("package " + imports.getSelfPackage() + ";");
+            pw.println();
+
+            imports.add("javax.annotation.processing.Generated");
+            imports.add(ApiClassWriter.PACKAGE_NAME + ".*");
+            imports.add(entity.getTargetEntityQualifiedName() + "Model");
+            imports.add("jakarta.persistence.metamodel.SingularAttribute");
+            pw.println(imports.generateImports(context.isJakarta()));
+            pw.println();
+
+            pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+            pw.println(body);
+        }
+        return sw.toString();
+    }
+
+
     /**
      * UnCapitalize the given string.
      * @param str the given string
@@ -16,8 +16,8 @@
 package com.mammb.code.jpa.fluent.modelgen.writer;
 
 import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
 import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
-import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
 
 import java.util.Map;
 
@@ -28,7 +28,128 @@ import java.util.Map;
  */
 public class RootModelClassGenerator extends AttributeClassGenerator {
 
-    private RootModelClassGenerator(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+        public static class Root_ implements RootAware<$EntityClass$>$Traits$ {
+            private final Root<$EntityClass$> root;
+            private final AbstractQuery<?> query;
+            private final CriteriaBuilder builder;
+            public Root_(Root<$EntityClass$> root, AbstractQuery<?> query, CriteriaBuilder builder) {
+                this.root = root;
+                this.query = query;
+                this.builder = builder;
+            }
+            @Override public Root<$EntityClass$> get() { return root; }
+            @Override public CriteriaBuilder builder() { return builder; }
+            @Override public AbstractQuery<?> query() { return query; }
+            @Override public Root_ with(Root<$EntityClass$> root, AbstractQuery<?> query) { return new Root_(root, query, builder()); }
+            @Override public Class<$EntityClass$> type() { return $EntityClass$.class; }
+            public CommonAbstractCriteria statement() { return query(); }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The class template in the compact mode. */
+    private static final CompiledTemplate COMPACT_CLASS = CompiledTemplate.of("""
+        public static class Root_ extends Nodes.RootNode<$EntityClass$> implements RootAware<$EntityClass$>$Traits$ {
+            public Root_(Root<$EntityClass$> root, AbstractQuery<?> query, CriteriaBuilder builder) {
+                super(root, query, builder);
+            }
+            @Override public Root_ with(Root<$EntityClass$> root, AbstractQuery<?> query) { return new Root_(root, query, builder()); }
+            @Override public Class<$EntityClass$> type() { return $EntityClass$.class; }
+            public CommonAbstractCriteria statement() { return query(); }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The template of singular attribute of struct type. */
+    private static final CompiledTemplate SINGULAR_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join(get(), $EnclosingType$_.$attributeName$, JoinType.INNER, from -> from.join($EnclosingType$_.$attributeName$)), query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join(get(), $EnclosingType$_.$attributeName$, JoinType.LEFT, from -> from.join($EnclosingType$_.$attributeName$, JoinType.LEFT)), query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(() -> get().join($EnclosingType$_.$attributeName$, joinType), query(), builder());
+        }
+        public $ValueType$Model.Path_ get$AttributeName$() {
+            return new $ValueType$Model.Path_(() ->get().get($EnclosingType$_.$attributeName$), query(), builder());
+        }
+        """);
+
+    /** The template of singular attribute of basic type. */
+    private static final CompiledTemplate SINGULAR = CompiledTemplate.of("""
+        public $CriteriaPathClass$ get$AttributeName$() {
+            return new $CriteriaPathClass$(this, $EnclosingType$_.$attributeName$, builder());
+        }
+        """);
+
+    /** The template of plural attribute join of struct type. */
+    private static final CompiledTemplate COLLECTION_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join((Root<$EnclosingType$>)(Root<?>) get(), $EnclosingType$_.$attributeName$, JoinType.INNER, from -> from.join($EnclosingType$_.$attributeName$)), query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(() -> Criteria.join((Root<$EnclosingType$>)(Root<?>) get(), $EnclosingType$_.$attributeName$, JoinType.LEFT, from -> from.join($EnclosingType$_.$attributeName$, JoinType.LEFT)), query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(() -> ((Root<$EnclosingType$>)(Root<?>) get()).join($EnclosingType$_.$attributeName$, joinType), query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute. */
+    private static final CompiledTemplate COLLECTION = CompiledTemplate.of("""
+        public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
+            return new Criteria.CollectionExp(() -> ((Root<$EnclosingType$>)(Root<?>) get()).get($EnclosingType$_.$attributeName$), builder());
+        }
+        """);
+
+    /** The template of singular attribute of struct type in the compact mode. */
+    private static final CompiledTemplate COMPACT_SINGULAR_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.INNER, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.LEFT, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, joinType, false, query(), builder());
+        }
+        public $ValueType$Model.Path_ get$AttributeName$() {
+            return new $ValueType$Model.Path_(this, $EnclosingType$_.$attributeName$, query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute join of struct type in the compact mode. */
+    private static final CompiledTemplate COMPACT_COLLECTION_STRUCT = CompiledTemplate.of("""
+        public $ValueType$Model.Join_ join$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.INNER, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ leftJoin$AttributeName$() {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, JoinType.LEFT, true, query(), builder());
+        }
+        public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) {
+            return new $ValueType$Model.Join_(this, $EnclosingType$_.$attributeName$, joinType, false, query(), builder());
+        }
+        """);
+
+    /** The template of plural attribute in the compact mode. */
+    private static final CompiledTemplate COMPACT_COLLECTION = CompiledTemplate.of("""
+        public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
+            return new Criteria.CollectionExp<>(this, $EnclosingType$_.$attributeName$, builder());
+        }
+        """);
+
+    /** The template of map attribute. */
+    private static final CompiledTemplate MAP = CompiledTemplate.of("""
+        public Expression<Map<$KeyType$, $ValueType$>> get$AttributeName$() {
+            return ((Root<$EnclosingType$>)(Root<?>) get()).get($EnclosingType$_.$attributeName$);
+        }
+        """);
+
+
+    private RootModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         super(context, entity, imports);
     }
 
@@ -40,96 +161,48 @@ public class RootModelClassGenerator extends AttributeClassGenerator {
      * @param imports the import sentences
      * @return Class writer
      */
-    public static RootModelClassGenerator of(ModelContext context, StaticMetamodelEntity entity, ImportBuilder imports) {
+    public static RootModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
         return new RootModelClassGenerator(context, entity, imports);
     }
 
 
     @Override
-    protected Template classTemplate() {
-        return Template.of("""
-            public static class Root_ implements RootAware<$EntityClass$> {
-                private final Root<$EntityClass$> root;
-                private final AbstractQuery<?> query;
-                private final CriteriaBuilder builder;
-                public Root_(Root<$EntityClass$> root, AbstractQuery<?> query, CriteriaBuilder builder) {
-                    this.root = root;
-                    this.query = query;
-                    this.builder = builder;
-                }
-                @Override public Root<$EntityClass$> get() { return root; }
-                @Override public CriteriaBuilder builder() { return builder; }
-                @Override public AbstractQuery<?> query() { return query; }
-                @Override public Root_ with(Root<$EntityClass$> root, AbstractQuery<?> query) { return new Root_(root, query, builder()); }
-                @Override public Class<$EntityClass$> type() { return $EntityClass$.class; }
-                $AttributeMethods$
-                $TreatMethods$
-            }
-            """);
+    protected CompiledTemplate classTemplate() {
+        return isCompact() ? COMPACT_CLASS : CLASS;
     }
 
 
-    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
         if (attr.getValueType().getPersistenceType().isStruct()) {
-            sb.append(Template.of("""
-                public $ValueType$Model.Join_ join$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> get().join($EnclosingType$_.$attributeName$), query(), builder());
-                }
-                public $ValueType$Model.Join_ leftJoin$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> get().join($EnclosingType$_.$attributeName$, JoinType.LEFT), query(), builder());
-                }
-                public $ValueType$Model.Path_ get$AttributeName$() {
-                    return new $ValueType$Model.Path_(() ->get().get($EnclosingType$_.$attributeName$), query(), builder());
-                }
-            """).bind(map));
+            (isCompact() ? COMPACT_SINGULAR_STRUCT : SINGULAR_STRUCT).render(out, map);
+            writeFetch(attr, "Criteria.fetchable(query(), get())", map, out);
         } else {
-            sb.append(Template.of("""
-                public $CriteriaPathClass$ get$AttributeName$() {
-                    return new $CriteriaPathClass$(() -> get().get($EnclosingType$_.$attributeName$), builder());
-                }
-            """).bind(map));
+            SINGULAR.render(out, map);
         }
     }
 
 
     @Override
-    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
         if (attr.getValueType().getPersistenceType().isStruct()) {
-            sb.append(Template.of("""
-                public $ValueType$Model.Join_ join$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> ((Root<$EnclosingType$>)(Root<?>) get()).join($EnclosingType$_.$attributeName$), query(), builder());
-                }
-                public $ValueType$Model.Join_ leftJoin$AttributeName$() {
-                    return new $ValueType$Model.Join_(() -> ((Root<$EnclosingType$>)(Root<?>) get()).join($EnclosingType$_.$attributeName$, JoinType.LEFT), query(), builder());
-                }
-            """).bind(map));
-        }
-        sb.append(Template.of("""
-            public Criteria.CollectionExp<$ValueType$, $AttributeJavaType$<$ValueType$>, Expression<$AttributeJavaType$<$ValueType$>>> get$AttributeName$() {
-                return new Criteria.CollectionExp(() -> ((Root<$EnclosingType$>)(Root<?>) get()).get($EnclosingType$_.$attributeName$), builder());
-            }
-        """).bind(map));
+            (isCompact() ? COMPACT_COLLECTION_STRUCT : COLLECTION_STRUCT).render(out, map);
+            writeFetch(attr, "Criteria.fetchable(query(), (Root<" + map.get("$EnclosingType$") + ">)(Root<?>) get())", map, out);
+            writeQuantifiers(attr, "statement()", "(Root<" + map.get("$EnclosingType$") + ">)(Root<?>) get()", map, out);
+        }
+        (isCompact() ? COMPACT_COLLECTION : COLLECTION).render(out, map);
     }
 
 
     @Override
-    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of(createMapJoin(attr.getKeyType(), attr.getValueType(), true)).bind(map));
-        sb.append(Template.of("""
-            public Expression<Map<$KeyType$, $ValueType$>> get$AttributeName$() {
-                return ((Root<$EnclosingType$>)(Root<?>) get()).get($EnclosingType$_.$attributeName$);
-            }
-        """).bind(map));
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeMapJoin(attr.getKeyType(), attr.getValueType(), true, map, out);
+        MAP.render(out, map);
     }
 
 
     @Override
-    protected void treatMethods(Map<String, String> map, StringBuilder sb) {
-        sb.append(Template.of("""
-            public $DescendantEntityClass$Model.Root_ as$DescendantEntityClass$() {
-                return new $DescendantEntityClass$Model.Root_(builder().treat(get(), $DescendantEntityClass$.class), query(), builder());
-            }
-        """).bind(map));
+    protected String classSimpleName() {
+        return "Root_";
     }
 
 }
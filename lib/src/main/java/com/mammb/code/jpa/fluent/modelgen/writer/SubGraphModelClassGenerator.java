@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
+
+import java.util.Map;
+
+/**
+ * The subgraph model class generator.
+ * <p>
+ * The subgraph model adds the attribute nodes and the subgraphs to the {@code Subgraph} of the entity or the embeddable,
+ * and holds the root {@code EntityGraph} that the subgraph belongs to.
+ * @see GraphModelClassGenerator
+ * @author Naotsugu Kobayashi
+ */
+public class SubGraphModelClassGenerator extends AttributeClassGenerator {
+
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+
+        public static class SubGraph_<R> implements Supplier<Subgraph<$EntityClass$>> {
+            private final Subgraph<$EntityClass$> graph;
+            private final EntityGraph<R> root;
+            public SubGraph_(Subgraph<$EntityClass$> graph, EntityGraph<R> root) {
+                this.graph = graph;
+                this.root = root;
+            }
+            @Override public Subgraph<$EntityClass$> get() { return graph; }
+            public EntityGraph<R> root() { return root; }
+            $AttributeMethods$
+        }
+        """);
+
+    /** The template of attribute node. */
+    private static final CompiledTemplate NODE = CompiledTemplate.of("""
+        public SubGraph_<R> $attributeName$() {
+            graph.addAttributeNodes($EnclosingType$_.$attributeName$.getName());
+            return this;
+        }
+        """);
+
+    /** The template of subgraph. */
+    private static final CompiledTemplate SUBGRAPH = CompiledTemplate.of("""
+        public $ValueType$Model.SubGraph_<R> $attributeName$() {
+            return new $ValueType$Model.SubGraph_<>(graph.addSubgraph($EnclosingType$_.$attributeName$.getName()), root);
+        }
+        """);
+
+
+    private SubGraphModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        super(context, entity, imports);
+    }
+
+
+    /**
+     * Create a class writer instance.
+     * @param context the context of processing
+     * @param entity the static metamodel entity
+     * @param imports the import sentences
+     * @return Class writer
+     */
+    public static SubGraphModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        return new SubGraphModelClassGenerator(context, entity, imports);
+    }
+
+
+    @Override
+    protected CompiledTemplate classTemplate() {
+        return CLASS;
+    }
+
+
+    @Override
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeNode(attr, map, out);
+    }
+
+
+    @Override
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeNode(attr, map, out);
+    }
+
+
+    @Override
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        writeNode(attr, map, out);
+    }
+
+
+    @Override
+    protected String classSimpleName() {
+        return "SubGraph_";
+    }
+
+
+    private void writeNode(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        if (GraphModelClassGenerator.RESERVED_NAMES.contains(attr.getName())) {
+            return;
+        }
+        if (attr.getValueType().getPersistenceType().isStruct()) {
+            SUBGRAPH.render(out, map);
+        } else {
+            NODE.render(out, map);
+        }
+    }
+
+}
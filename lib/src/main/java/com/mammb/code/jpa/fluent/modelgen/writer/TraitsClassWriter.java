@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.JpaModelProcessor;
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.RepositoryTraitType;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelEntity;
+
+import javax.annotation.processing.FilerException;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * The traits class writer.
+ * <p>
+ * Writes the {@code <Entity>Traits_} interface that holds everything of the model
+ * that depends on other elements than the static metamodel of the entity itself,
+ * i.e. the treat methods to the descendant entities and the repository traits.
+ * The {@code <Entity>Model} and the {@code <Entity>Repository_} only implement these interfaces,
+ * so that they can be generated by an isolating annotation processor.
+ *
+ * @author Naotsugu Kobayashi
+ */
+public class TraitsClassWriter {
+
+    /** Context of processing. */
+    private final ModelContext context;
+
+    /** Representation of static metamodel. */
+    private final StaticMetamodelEntity entity;
+
+    /** Import sentences. */
+    private final ImportBuilder imports;
+
+
+    /**
+     * Constructor.
+     * @param context the context of processing
+     * @param entity the representation of static metamodel
+     */
+    protected TraitsClassWriter(ModelContext context, StaticMetamodelEntity entity) {
+        this.context = context;
+        this.entity = entity;
+        this.imports = ImportBuilder.of(entity.getPackageName());
+    }
+
+
+    /**
+     * Create a class writer instance.
+     * @param context the context of processing
+     * @param entity the representation of static metamodel
+     * @return Traits class writer
+     */
+    public static TraitsClassWriter of(ModelContext context, StaticMetamodelEntity entity) {
+        return new TraitsClassWriter(context, entity);
+    }
+
+
+    /**
+     * Write a generated class file.
+     */
+    public void writeFile() {
+
+        context.logDebug("Create traits : {}", entity.getQualifiedName());
+
+        try {
+
+            FileObject fo = context.getFiler().createSourceFile(
+                entity.getTargetEntityQualifiedName() + "Traits_", originatingElements());
+
+            try (PrintWriter pw = new PrintWriter(fo.openOutputStream())) {
+
+                var entityName = imports.add(entity.getTargetEntityQualifiedName());
+                var body = Template.of("""
+                    public interface $EntityClass$Traits_ {
+
+                        interface Root_ {
+                            Root<$EntityClass$> get();
+                            AbstractQuery<?> query();
+                            CriteriaBuilder builder();
+                            $RootTreatMethods$
+                        }
+
+                        interface Join_ {
+                            Join<?, $EntityClass$> get();
+                            AbstractQuery<?> query();
+                            CriteriaBuilder builder();
+                            $JoinTreatMethods$
+                        }
+
+                        interface Path_ {
+                            Path<$EntityClass$> get();
+                            AbstractQuery<?> query();
+                            CriteriaBuilder builder();
+                            $PathTreatMethods$
+                        }
+                        $Repository$
+                    }
+                    """).bind(
+                    "$RootTreatMethods$", treatMethods("""
+                        default $DescendantEntityClass$Model.Root_ as$DescendantEntityClass$() {
+                            return new $DescendantEntityClass$Model.Root_(builder().treat(get(), $DescendantEntityClass$.class), query(), builder());
+                        }
+                    """),
+                    "$JoinTreatMethods$", treatMethods("""
+                        default $DescendantEntityClass$Model.Join_ as$DescendantEntityClass$() {
+                            return new $DescendantEntityClass$Model.Join_(() -> builder().treat(get(), $DescendantEntityClass$.class), query(), builder());
+                        }
+                    """),
+                    "$PathTreatMethods$", treatMethods("""
+                        default $DescendantEntityClass$Model.Path_ as$DescendantEntityClass$() {
+                            return new $DescendantEntityClass$Model.Path_(() -> builder().treat(get(), $DescendantEntityClass$.class), query(), builder());
+                        }
+                    """),
+                    "$Repository$", repositoryTraits(),
+                    "$EntityClass$", entityName).toString();
+
+                pw.println("package " + imports.getSelfPackage() + ";");
+                pw.println();
+
+                imports.add("javax.annotation.processing.Generated");
+                imports.add("jakarta.persistence.criteria.AbstractQuery");
+                imports.add("jakarta.persistence.criteria.CriteriaBuilder");
+                imports.add("jakarta.persistence.criteria.Join");
+                imports.add("jakarta.persistence.criteria.Path");
+                imports.add("jakarta.persistence.criteria.Root");
+                pw.println(imports.generateImports(context.isJakarta()));
+                pw.println();
+
+                pw.println("@Generated(value = \"%s\")".formatted(JpaModelProcessor.class.getName()));
+                pw.println(body);
+                pw.flush();
+            }
+
+        } catch (FilerException e) {
+            context.logError("Problem with Filer : {}", e.getMessage());
+        } catch (Exception e) {
+            context.logError("Problem opening file to write Traits for {} : {}", entity.getSimpleName(), e.getMessage());
+        }
+    }
+
+
+    /**
+     * Create the treat methods for each descendant entities.
+     * @param template the template of treat method
+     * @return the treat methods
+     */
+    private String treatMethods(String template) {
+        var sb = new StringBuilder();
+        for (StaticMetamodelEntity e : entity.getDescendants()) {
+            sb.append(Template.of(template).bind(
+                "$DescendantEntityClass$", imports.add(e.getTargetEntityQualifiedName())).getIndentedValue(1));
+        }
+        var ret = sb.toString();
+        return ret.isBlank() ? "" : ret.substring(Template.firstCharIndexOf(ret)).stripTrailing();
+    }
+
+
+    /**
+     * Create the repository trait interface.
+     * @return the repository trait interface
+     */
+    private String repositoryTraits() {
+
+        if (!context.isAddRepository() || entity.getEntityIdType().isEmpty()) {
+            return "";
+        }
+
+        var extendsClause = String.join(", ", context.getRepositoryTraitTypes().stream()
+            .map(trait -> trait.createExtendsClause(entity, imports))
+            .filter(not(String::isEmpty))
+            .toArray(String[]::new));
+
+        var idName = imports.add(entity.getEntityIdType().get().toString());
+        var entityName = imports.add(entity.getTargetEntityQualifiedName());
+        return """
+
+                interface Repository_%s {
+                }
+            """.formatted(extendsClause.isEmpty() ? "" : " extends " + extendsClause.formatted(idName, entityName));
+    }
+
+
+    /**
+     * Get the originating elements of the traits class.
+     * These are the static metamodel, the descendants metamodel and the repository traits.
+     * @return the originating elements
+     */
+    private Element[] originatingElements() {
+        List<Element> elements = new ArrayList<>();
+        elements.add(entity.getElement());
+        entity.getDescendants().stream().map(StaticMetamodelEntity::getElement).forEach(elements::add);
+        context.getRepositoryTraitTypes().stream().map(RepositoryTraitType::getElement).forEach(elements::add);
+        return elements.toArray(Element[]::new);
+    }
+
+}
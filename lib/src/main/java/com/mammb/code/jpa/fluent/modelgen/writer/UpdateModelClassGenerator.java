@@ -0,0 +1,299 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mammb.code.jpa.fluent.modelgen.writer;
+
+import com.mammb.code.jpa.fluent.modelgen.context.ModelContext;
+import com.mammb.code.jpa.fluent.modelgen.model.MetamodelSnapshot;
+import com.mammb.code.jpa.fluent.modelgen.model.StaticMetamodelAttribute;
+
+import javax.lang.model.util.ElementFilter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The bulk update and delete model class generator.
+ * <p>
+ * The update and the delete models extend the root model of the entity,
+ * so that the restrictions of the statement are built with the same navigation as the query.
+ * The update model has no setter of the {@code @Id} attribute, and increments the {@code @Version} attribute
+ * of the entity, if any, as the bulk update of the criteria api does not.
+ * A numeric version is incremented by one, and a temporal version is set to the current time.
+ * A version of other type is reported as a warning, and is not incremented.
+ * The bulk statements have no joins and no fetches, so the join and the fetch methods of the root model fail fast.
+ * @see AttributeClassGenerator
+ * @author Naotsugu Kobayashi
+ */
+public class UpdateModelClassGenerator extends AttributeClassGenerator {
+
+    /** The class template. */
+    private static final CompiledTemplate CLASS = CompiledTemplate.of("""
+
+        public static Update_ update(CriteriaBuilder builder) {
+            return new Update_(builder.createCriteriaUpdate($EntityClass$.class), builder);
+        }
+        public static Delete_ delete(CriteriaBuilder builder) {
+            return new Delete_(builder.createCriteriaDelete($EntityClass$.class), builder);
+        }
+        public static class Update_ extends Root_ {
+            private final CriteriaUpdate<$EntityClass$> update;
+            public Update_(CriteriaUpdate<$EntityClass$> update, CriteriaBuilder builder) {
+                super(update.from($EntityClass$.class), null, builder);
+                this.update = update;$VersionIncrement$
+            }
+            @Override public CriteriaUpdate<$EntityClass$> statement() { return update; }
+            public Update_ where(Predicate... restrictions) {
+                update.where(Criteria.restrictions(restrictions));
+                return this;
+            }
+            public int execute(EntityManager em) {
+                return em.createQuery(update).executeUpdate();
+            }
+            $AttributeMethods$
+        }
+        public static class Delete_ extends Root_ {
+            private final CriteriaDelete<$EntityClass$> delete;
+            public Delete_(CriteriaDelete<$EntityClass$> delete, CriteriaBuilder builder) {
+                super(delete.from($EntityClass$.class), null, builder);
+                this.delete = delete;
+            }
+            @Override public CriteriaDelete<$EntityClass$> statement() { return delete; }
+            public Delete_ where(Predicate... restrictions) {
+                delete.where(Criteria.restrictions(restrictions));
+                return this;
+            }
+            public int execute(EntityManager em) {
+                return em.createQuery(delete).executeUpdate();
+            }
+            $DeleteAttributeMethods$
+        }
+        private static UnsupportedOperationException unsupportedInBulk(String method) {
+            return new UnsupportedOperationException("The bulk update and delete make no joins and no fetches : " + method);
+        }
+        """);
+
+    /** The template of singular attribute. */
+    private static final CompiledTemplate SINGULAR = CompiledTemplate.of("""
+        public Update_ set$AttributeName$($ValueType$ value) {
+            update.set($EnclosingType$_.$attributeName$, value);
+            return this;
+        }
+        public Update_ set$AttributeName$(Expression<? extends $ValueType$> value) {
+            update.set($EnclosingType$_.$attributeName$, value);
+            return this;
+        }
+        public Update_ set$AttributeName$(Supplier<? extends Expression<? extends $ValueType$>> value) {
+            update.set($EnclosingType$_.$attributeName$, value.get());
+            return this;
+        }
+        """);
+
+    /** The template of the join methods of struct type, failing in the bulk statements. */
+    private static final CompiledTemplate UNSUPPORTED_JOIN = CompiledTemplate.of("""
+        @Override public $ValueType$Model.Join_ join$AttributeName$() { throw unsupportedInBulk("join$AttributeName$"); }
+        @Override public $ValueType$Model.Join_ leftJoin$AttributeName$() { throw unsupportedInBulk("leftJoin$AttributeName$"); }
+        @Override public $ValueType$Model.Join_ newJoin$AttributeName$(JoinType joinType) { throw unsupportedInBulk("newJoin$AttributeName$"); }
+        """);
+
+    /** The template of the fetch methods of entity association, failing in the bulk statements. */
+    private static final CompiledTemplate UNSUPPORTED_FETCH = CompiledTemplate.of("""
+        @Override public $ValueType$Model.Fetch_ fetch$AttributeName$() { throw unsupportedInBulk("fetch$AttributeName$"); }
+        @Override public $ValueType$Model.Fetch_ leftFetch$AttributeName$() { throw unsupportedInBulk("leftFetch$AttributeName$"); }
+        """);
+
+    /** The template of the MapJoin method, failing in the bulk statements. */
+    private static final CompiledTemplate UNSUPPORTED_MAP_JOIN = CompiledTemplate.of("""
+        @Override public Predicate join$AttributeName$(BiFunction<$keyPath$, $valPath$, Predicate> fun) { throw unsupportedInBulk("join$AttributeName$"); }
+        """);
+
+    /** The template of the version increment. */
+    private static final CompiledTemplate VERSION_INCREMENT = CompiledTemplate.of("""
+
+        update.set($EnclosingType$_.$attributeName$, $nextVersion$);""");
+
+    /** The context of processing. */
+    private final ModelContext context;
+
+    /** The entity. */
+    private final MetamodelSnapshot entity;
+
+    /** The import sentences. */
+    private final ImportBuilder imports;
+
+    /** Whether the attribute methods being written are of the update model, with the setters. */
+    private boolean setters;
+
+
+    private UpdateModelClassGenerator(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        super(context, entity, imports);
+        this.context = context;
+        this.entity = entity;
+        this.imports = imports;
+    }
+
+
+    /**
+     * Create a class writer instance.
+     * @param context the context of processing
+     * @param entity the static metamodel entity
+     * @param imports the import sentences
+     * @return Class writer
+     */
+    public static UpdateModelClassGenerator of(ModelContext context, MetamodelSnapshot entity, ImportBuilder imports) {
+        return new UpdateModelClassGenerator(context, entity, imports);
+    }
+
+
+    @Override
+    public void generate(IndentWriter out) {
+        CLASS.render(out, Map.of(
+            "$EntityClass$", imports.add(entity.getTargetEntityQualifiedName()),
+            "$VersionIncrement$", (CompiledTemplate.Fragment) this::versionIncrement,
+            "$AttributeMethods$", (CompiledTemplate.Fragment) writer -> attributeMethods(writer, true),
+            "$DeleteAttributeMethods$", (CompiledTemplate.Fragment) writer -> attributeMethods(writer, false)));
+    }
+
+
+    /**
+     * Write the methods of all the attributes of the update or the delete model.
+     * @param out the writer
+     * @param setters whether the setters of the update model are written
+     */
+    private void attributeMethods(IndentWriter out, boolean setters) {
+        this.setters = setters;
+        attributeMethods(out);
+    }
+
+
+    @Override
+    protected CompiledTemplate classTemplate() {
+        return CLASS;
+    }
+
+
+    @Override
+    protected void singularAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        if (setters && !isId(attr) && !isVersion(attr)) {
+            SINGULAR.render(out, map);
+        }
+        unsupportedJoins(attr, map, out);
+    }
+
+
+    @Override
+    protected void collectionAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        // the plural attributes are not updatable by a bulk update
+        unsupportedJoins(attr, map, out);
+    }
+
+
+    @Override
+    protected void mapAttribute(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        // the map attributes are not updatable by a bulk update
+        var values = new HashMap<>(map);
+        values.put("$keyPath$", mapEntryPathClassName(attr.getKeyType()));
+        values.put("$valPath$", mapEntryPathClassName(attr.getValueType()));
+        UNSUPPORTED_MAP_JOIN.render(out, values);
+    }
+
+
+    /**
+     * Write the join and the fetch methods of the root model overridden to fail.
+     * @param attr the {@link StaticMetamodelAttribute}
+     * @param map the map of binding value
+     * @param out the writer
+     */
+    private void unsupportedJoins(StaticMetamodelAttribute attr, Map<String, String> map, IndentWriter out) {
+        if (!attr.getValueType().getPersistenceType().isStruct()) {
+            return;
+        }
+        UNSUPPORTED_JOIN.render(out, map);
+        if (attr.getValueType().getPersistenceType().isEntity()) {
+            UNSUPPORTED_FETCH.render(out, map);
+        }
+    }
+
+
+    @Override
+    protected String classSimpleName() {
+        return "Update_";
+    }
+
+
+    /**
+     * Write the increment of the version attribute.
+     * The numeric version is incremented by one, and the timestamp version is set to the current timestamp.
+     * A version of the other types is left to the application.
+     * @param out the writer
+     */
+    private void versionIncrement(IndentWriter out) {
+        for (StaticMetamodelAttribute attr : entity.getAllAttributes()) {
+            if (!isVersion(attr)) {
+                continue;
+            }
+            var path = "get().get(" + imports.add(attr.getEnclosingType().getName()) + "_." + attr.getName() + ")";
+            String nextVersion = switch (attr.getValueType().getName()) {
+                case "java.lang.Integer", "int" -> "builder().sum(" + path + ", 1)";
+                case "java.lang.Long", "long" -> "builder().sum(" + path + ", 1L)";
+                case "java.lang.Short", "short" -> "builder().sum(" + path + ", (short) 1)";
+                case "java.sql.Timestamp", "java.util.Date" -> "builder().currentTimestamp()";
+                case "java.time.LocalDateTime" -> currentTime("localDateTime", "java.time.LocalDateTime");
+                case "java.time.Instant" -> currentTime("instant", "java.time.Instant");
+                default -> null;
+            };
+            if (nextVersion == null) {
+                context.logWarn("The version {}.{} of type {} is not incremented by the bulk update",
+                    entity.getTargetEntityQualifiedName(), attr.getName(), attr.getValueType().getName());
+                return;
+            }
+            VERSION_INCREMENT.render(out, Map.of(
+                "$EnclosingType$", imports.add(attr.getEnclosingType().getName()),
+                "$attributeName$", attr.getName(),
+                "$nextVersion$", nextVersion));
+            return;
+        }
+    }
+
+
+    /**
+     * Get the expression of the current time, by the given method of the criteria builder if declared,
+     * otherwise by the literal of the current time of the application.
+     * @param method the name of the method of the criteria builder
+     * @param type the qualified name of the temporal type
+     * @return the expression of the current time
+     */
+    private String currentTime(String method, String type) {
+        var builder = context.getElementUtils().getTypeElement(
+            (context.isJakarta() ? "jakarta" : "javax") + ".persistence.criteria.CriteriaBuilder");
+        boolean declared = builder != null && ElementFilter.methodsIn(builder.getEnclosedElements()).stream()
+            .anyMatch(m -> m.getSimpleName().contentEquals(method) && m.getParameters().isEmpty());
+        return declared
+            ? "builder()." + method + "()"
+            : "builder().literal(" + imports.add(type) + ".now())";
+    }
+
+
+    private boolean isId(StaticMetamodelAttribute attr) {
+        return attr.getAttributeType().isSingular()
+            && entity.getEntityIdName().filter(attr.getName()::equals).isPresent();
+    }
+
+
+    private boolean isVersion(StaticMetamodelAttribute attr) {
+        return attr.getAttributeType().isSingular()
+            && entity.getEntityVersionName().filter(attr.getName()::equals).isPresent();
+    }
+
+}
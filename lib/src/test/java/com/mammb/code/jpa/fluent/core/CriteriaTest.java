@@ -0,0 +1,92 @@
+package com.mammb.code.jpa.fluent.core;
+
+import com.mammb.code.jpa.fluent.test.Issue;
+import com.mammb.code.jpa.fluent.test.IssueModel;
+import com.mammb.code.jpa.fluent.test.IssueRepository_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CriteriaTest {
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private final IssueRepository_ repository = new IssueRepository_() { };
+
+    @BeforeAll
+    static void beforeAll() {
+        emf = Persistence.createEntityManagerFactory("test");
+    }
+
+    @AfterAll
+    static void afterAll() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (String title : List.of("a", "b", "c", "d", "e")) {
+            var issue = new Issue();
+            issue.setTitle(title);
+            em.persist(issue);
+        }
+        em.flush();
+    }
+
+    @AfterEach
+    void afterEach() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+
+    @Test
+    void inBindsPaddedParameters() {
+        var query = repository.createQuery(em, issue -> issue.getTitle().in(List.of("a", "b", "c")));
+        assertEquals(4, query.getParameters().size());
+        assertEquals(List.of("a", "b", "c"), titles(query.getResultList()));
+    }
+
+
+    @Test
+    void inChunksOfSize() {
+        var query = repository.createQuery(em, issue -> issue.getTitle().inChunks(List.of("e", "a", "c"), 2));
+        assertEquals(3, query.getParameters().size());
+        assertEquals(List.of("a", "c", "e"), titles(query.getResultList()));
+    }
+
+
+    @Test
+    void inChunksOfEmptyListMatchesNoRows() {
+        assertEquals(List.of(), repository.findAll(em, issue -> issue.getTitle().inChunks(List.of())));
+
+        var delete = IssueModel.delete(em.getCriteriaBuilder());
+        assertEquals(0, delete.where(delete.getTitle().inChunks(List.of())).execute(em));
+        assertEquals(5, repository.count(em, Filter.empty()));
+    }
+
+
+    @Test
+    void inChunksOfNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.findAll(em, issue -> issue.getTitle().inChunks(List.of("a"), 0)));
+    }
+
+
+    private static List<String> titles(List<Issue> issues) {
+        return issues.stream().map(Issue::getTitle).sorted().toList();
+    }
+
+}
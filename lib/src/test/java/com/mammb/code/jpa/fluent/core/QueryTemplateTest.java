@@ -0,0 +1,139 @@
+package com.mammb.code.jpa.fluent.core;
+
+import com.mammb.code.jpa.fluent.test.Issue;
+import com.mammb.code.jpa.fluent.test.IssueModel;
+import com.mammb.code.jpa.fluent.test.IssueRepository_;
+import com.mammb.code.jpa.fluent.test.Issue_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryTemplateTest {
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private final IssueRepository_ repository = new IssueRepository_() { };
+
+    @BeforeAll
+    static void beforeAll() {
+        emf = Persistence.createEntityManagerFactory("test");
+    }
+
+    @AfterAll
+    static void afterAll() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.persist(issue("a", null));
+        em.persist(issue(null, "a"));
+        em.persist(issue("b", "b"));
+        em.persist(issue("c", "d"));
+        em.flush();
+    }
+
+    @AfterEach
+    void afterEach() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+
+    @Test
+    void sameShapeOnDifferentAttributes() {
+        var template = QueryTemplate.<Issue>of();
+        assertEquals(List.of("a"), descriptions(repository.findAll(em, template, issue -> issue.getTitle().isNull())));
+        assertEquals(List.of("a"), titles(repository.findAll(em, template, issue -> issue.getDescription().isNull())));
+        assertEquals(List.of("b"), titles(repository.findAll(em, template, issue -> issue.getTitle().eq("b"))));
+        assertEquals(List.of("a"), descriptions(repository.findAll(em, template, issue -> issue.getDescription().eq("a"))));
+        assertEquals(4, templates(template));
+    }
+
+
+    @Test
+    void sameFilterWithOtherValues() {
+        var template = QueryTemplate.<Issue>of();
+        assertEquals(List.of("a"), titles(repository.findAll(em, template, byTitles(List.of("a")))));
+        assertEquals(List.of("b"), titles(repository.findAll(em, template, byTitles(List.of("b")))));
+        assertEquals(List.of("a", "b"), titles(repository.findAll(em, template, byTitles(List.of("b", "a")))));
+        assertEquals(2, templates(template));
+    }
+
+
+    @Test
+    void sameStructureBuiltInOtherOrder() {
+        var template = QueryTemplate.<Issue>of();
+        Filter<Issue, IssueModel.Root_> titleFirst = issue -> {
+            var title = issue.getTitle().eq("b");
+            var description = issue.getDescription().eq("b");
+            return issue.builder().and(title, description);
+        };
+        Filter<Issue, IssueModel.Root_> descriptionFirst = issue -> {
+            var description = issue.getDescription().eq("d");
+            var title = issue.getTitle().eq("c");
+            return issue.builder().and(title, description);
+        };
+        assertEquals(List.of("b"), titles(repository.findAll(em, template, titleFirst)));
+        assertEquals(List.of("c"), titles(repository.findAll(em, template, descriptionFirst)));
+        assertEquals(1, templates(template));
+    }
+
+
+    @Test
+    void literalsAreNotCached() {
+        var template = QueryTemplate.<Issue>of();
+        assertEquals(List.of("a"), titles(repository.findAll(em, template, byLiteral("a"))));
+        assertEquals(List.of("b"), titles(repository.findAll(em, template, byLiteral("b"))));
+        assertEquals(0, templates(template));
+    }
+
+
+    private static Filter<Issue, IssueModel.Root_> byTitles(Collection<String> titles) {
+        return issue -> issue.getTitle().in(titles);
+    }
+
+    private static Filter<Issue, IssueModel.Root_> byLiteral(String title) {
+        return issue -> issue.builder().equal(issue.get().get(Issue_.title), issue.builder().literal(title));
+    }
+
+    private static int templates(QueryTemplate<?> template) {
+        try {
+            Field field = QueryTemplate.class.getDeclaredField("templates");
+            field.setAccessible(true);
+            return ((Map<?, ?>) field.get(template)).size();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static List<String> titles(List<Issue> issues) {
+        return issues.stream().map(Issue::getTitle).map(String::valueOf).sorted().toList();
+    }
+
+    private static List<String> descriptions(List<Issue> issues) {
+        return issues.stream().map(Issue::getDescription).map(String::valueOf).sorted().toList();
+    }
+
+    private static Issue issue(String title, String description) {
+        var issue = new Issue();
+        issue.setTitle(title);
+        issue.setDescription(description);
+        return issue;
+    }
+
+}
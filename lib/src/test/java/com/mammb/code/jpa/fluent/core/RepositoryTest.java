@@ -0,0 +1,115 @@
+package com.mammb.code.jpa.fluent.core;
+
+import com.mammb.code.jpa.fluent.test.Issue;
+import com.mammb.code.jpa.fluent.test.IssueModel;
+import com.mammb.code.jpa.fluent.test.IssueRepository_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryTest {
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private final IssueRepository_ repository = new IssueRepository_() { };
+    private final Keyset<Issue, IssueModel.Root_> byTitle = Keyset.<Issue, IssueModel.Root_>of().asc(issue -> issue.getTitle());
+
+    @BeforeAll
+    static void beforeAll() {
+        emf = Persistence.createEntityManagerFactory("test");
+    }
+
+    @AfterAll
+    static void afterAll() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (String title : List.of("c", "a", "b")) {
+            var issue = new Issue();
+            issue.setTitle(title);
+            em.persist(issue);
+        }
+        em.flush();
+    }
+
+    @AfterEach
+    void afterEach() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+
+    @Test
+    void findSlice() {
+        var first = repository.findSlice(em, Filter.empty(), issue -> List.of(issue.getTitle().asc()), 0, 2);
+        assertEquals(List.of("a", "b"), titles(first.content()));
+        assertTrue(first.hasNext());
+
+        var last = repository.findSlice(em, Filter.empty(), issue -> List.of(issue.getTitle().asc()), 2, 2);
+        assertEquals(List.of("c"), titles(last.content()));
+        assertFalse(last.hasNext());
+
+        var exact = repository.findSlice(em, Filter.empty(), issue -> List.of(issue.getTitle().asc()), 0, 3);
+        assertEquals(3, exact.content().size());
+        assertFalse(exact.hasNext());
+    }
+
+
+    @Test
+    void findSliceOfMaxLimit() {
+        var slice = repository.findSlice(em, Filter.empty(), issue -> List.of(issue.getTitle().asc()), 0, Integer.MAX_VALUE);
+        assertEquals(List.of("a", "b", "c"), titles(slice.content()));
+        assertFalse(slice.hasNext());
+    }
+
+
+    @Test
+    void findPage() {
+        var first = repository.findPage(em, Filter.empty(), byTitle, 2);
+        assertEquals(List.of("a", "b"), titles(first.content()));
+        assertTrue(first.hasNext());
+
+        var last = repository.findPage(em, Filter.empty(), byTitle, first.next(), 2);
+        assertEquals(List.of("c"), titles(last.content()));
+        assertFalse(last.hasNext());
+    }
+
+
+    @Test
+    void findPageOfMaxSize() {
+        var page = repository.findPage(em, Filter.empty(), byTitle, Integer.MAX_VALUE);
+        assertEquals(List.of("a", "b", "c"), titles(page.content()));
+        assertFalse(page.hasNext());
+    }
+
+
+    @Test
+    void nonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.findSlice(em, Filter.empty(), issue -> List.of(issue.getTitle().asc()), 0, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.findPage(em, Filter.empty(), byTitle, -1));
+    }
+
+
+    private static List<String> titles(List<Issue> issues) {
+        return issues.stream().map(Issue::getTitle).toList();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.mammb.code.jpa.fluent.core;
+
+import com.mammb.code.jpa.fluent.test.Issue;
+import com.mammb.code.jpa.fluent.test.IssueModel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpdateModelTest {
+
+    private static EntityManagerFactory emf;
+    private EntityManager em;
+    private Issue issue;
+
+    @BeforeAll
+    static void beforeAll() {
+        emf = Persistence.createEntityManagerFactory("test");
+    }
+
+    @AfterAll
+    static void afterAll() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        issue = new Issue();
+        issue.setTitle("a");
+        em.persist(issue);
+        em.flush();
+    }
+
+    @AfterEach
+    void afterEach() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+
+    @Test
+    void updateIncrementsVersion() {
+        long version = issue.getVersion();
+        var update = IssueModel.update(em.getCriteriaBuilder());
+        assertEquals(1, update.setTitle("b").where(update.getId().eq(issue.getId())).execute(em));
+
+        em.clear();
+        var updated = em.find(Issue.class, issue.getId());
+        assertEquals("b", updated.getTitle());
+        assertEquals(version + 1, updated.getVersion());
+    }
+
+
+    @Test
+    void deleteByFilter() {
+        var delete = IssueModel.delete(em.getCriteriaBuilder());
+        assertEquals(0, delete.where(delete.getTitle().eq("b")).execute(em));
+        assertEquals(1, IssueModel.delete(em.getCriteriaBuilder()).execute(em));
+    }
+
+
+    @Test
+    void noSetterOfIdAndVersion() {
+        assertFalse(Arrays.stream(IssueModel.Update_.class.getMethods()).map(Method::getName)
+            .anyMatch(name -> name.equals("setId") || name.equals("setVersion")));
+    }
+
+
+    @Test
+    void noJoinInBulk() {
+        var update = IssueModel.update(em.getCriteriaBuilder());
+        assertThrows(UnsupportedOperationException.class, update::joinProject);
+    }
+
+}
@@ -1,2 +1,3 @@
 rootProject.name = "jpa-fluent-modelgen"
 include("lib")
+include("benchmarks")